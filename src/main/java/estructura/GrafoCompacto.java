@@ -0,0 +1,298 @@
+package estructura;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/*
+Clase: GrafoCompacto
+Objetivo: Instantánea inmutable del grafo en formato CSR (compressed sparse row).
+          Cada estación recibe un índice entero y las rutas salientes de la estación i
+          ocupan las posiciones [desplazamientos[i], desplazamientos[i + 1]) de los
+          arreglos paralelos de destinos y pesos. Los algoritmos recorren arreglos
+          primitivos en vez de hacer búsquedas en el HashMap del GrafoTransporte.
+*/
+public final class GrafoCompacto {
+
+    // Estaciones por índice y el índice de cada estación por su id.
+    private final Estacion[] estaciones;
+    private final Map<UUID, Integer> indices;
+    // Ordinal del TipoEstacion de cada estación.
+    private final int[] tipos;
+    // Coordenadas y velocidad de cada estación.
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int[] velocidades;
+
+    // Las rutas de la estación i van desde desplazamientos[i] hasta desplazamientos[i + 1] - 1.
+    private final int[] desplazamientos;
+    private final int[] origenes;
+    private final int[] destinos;
+
+    // Pesos de cada ruta, paralelos al arreglo de destinos.
+    private final double[] distancias;
+    private final double[] tiempos;
+    private final double[] costos;
+    private final double[] ponderaciones;
+    // 1 si la ruta une estaciones de distinto tipo (un transbordo) y 0 si no.
+    private final double[] transbordos;
+    // Peso de la ruta para el criterio de transbordos: transbordo * (n + 1) + 1. Un camino simple tiene
+    // menos de n + 1 rutas, así el menor peso es el de menos transbordos y, entre esos, el de menos rutas.
+    private final double[] pesosTransbordos;
+    private final int[] pesosTransbordosEnteros;
+    // Distancia de cada ruta como entero (así se guarda en Ruta), junto a la menor y la mayor.
+    private final int[] distanciasEnteras;
+    private final int distanciaMinima;
+    private final int distanciaMaxima;
+
+    // Ruta original de cada posición, para poder devolver los objetos al terminar una búsqueda.
+    private final Ruta[] rutas;
+
+    // Adyacencia inversa: las rutas que llegan a la estación i son aristasEntrantes[desplazamientosEntrantes[i]]
+    // hasta aristasEntrantes[desplazamientosEntrantes[i + 1] - 1], guardadas como posiciones de los arreglos de arriba.
+    private final int[] desplazamientosEntrantes;
+    private final int[] aristasEntrantes;
+
+    // Construye la instantánea a partir del estado actual del grafo.
+    public GrafoCompacto(GrafoTransporte grafo) {
+        Map<Estacion, List<Ruta>> web = grafo.getWeb();
+        int n = web.size();
+
+        estaciones = new Estacion[n];
+        indices = new HashMap<>(n * 2);
+        tipos = new int[n];
+        latitudes = new double[n];
+        longitudes = new double[n];
+        velocidades = new int[n];
+        int i = 0;
+        for (Estacion estacion : web.keySet()) {
+            estaciones[i] = estacion;
+            indices.put(estacion.getId(), i);
+            tipos[i] = estacion.getTipo() == null ? -1 : estacion.getTipo().ordinal();
+            latitudes[i] = estacion.getLatitud();
+            longitudes[i] = estacion.getLongitud();
+            velocidades[i] = estacion.getVelocidad();
+            i++;
+        }
+
+        // Contar las rutas válidas (con destino dentro del grafo) para dimensionar los arreglos.
+        desplazamientos = new int[n + 1];
+        int m = 0;
+        for (int v = 0; v < n; v++) {
+            desplazamientos[v] = m;
+            for (Ruta ruta : web.get(estaciones[v])) {
+                if (indices.containsKey(ruta.getDestino().getId())) m++;
+            }
+        }
+        desplazamientos[n] = m;
+
+        origenes = new int[m];
+        destinos = new int[m];
+        distancias = new double[m];
+        tiempos = new double[m];
+        costos = new double[m];
+        ponderaciones = new double[m];
+        transbordos = new double[m];
+        pesosTransbordos = new double[m];
+        pesosTransbordosEnteros = new int[m];
+        distanciasEnteras = new int[m];
+        rutas = new Ruta[m];
+
+        int a = 0;
+        int minima = Integer.MAX_VALUE;
+        int maxima = Integer.MIN_VALUE;
+        for (int v = 0; v < n; v++) {
+            for (Ruta ruta : web.get(estaciones[v])) {
+                Integer destino = indices.get(ruta.getDestino().getId());
+                if (destino == null) continue;
+                origenes[a] = v;
+                destinos[a] = destino;
+                distancias[a] = ruta.getDistancia();
+                distanciasEnteras[a] = ruta.getDistancia();
+                minima = Math.min(minima, ruta.getDistancia());
+                maxima = Math.max(maxima, ruta.getDistancia());
+                tiempos[a] = ruta.getTiempo();
+                costos[a] = ruta.getCosto();
+                ponderaciones[a] = ruta.getPonderacion();
+                transbordos[a] = tipos[v] != tipos[destino] ? 1.0 : 0.0;
+                pesosTransbordosEnteros[a] = (int) transbordos[a] * (n + 1) + 1;
+                pesosTransbordos[a] = pesosTransbordosEnteros[a];
+                rutas[a] = ruta;
+                a++;
+            }
+        }
+        distanciaMinima = m == 0 ? 0 : minima;
+        distanciaMaxima = m == 0 ? 0 : maxima;
+
+        // Construir la adyacencia inversa contando primero las rutas que llegan a cada estación.
+        desplazamientosEntrantes = new int[n + 1];
+        for (int arista = 0; arista < m; arista++) {
+            desplazamientosEntrantes[destinos[arista] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            desplazamientosEntrantes[v + 1] += desplazamientosEntrantes[v];
+        }
+        aristasEntrantes = new int[m];
+        int[] siguiente = Arrays.copyOf(desplazamientosEntrantes, n);
+        for (int arista = 0; arista < m; arista++) {
+            aristasEntrantes[siguiente[destinos[arista]]++] = arista;
+        }
+    }
+
+    // Cantidad de estaciones en la instantánea.
+    public int getCantEstaciones() {
+        return estaciones.length;
+    }
+
+    // Cantidad de rutas en la instantánea.
+    public int getCantRutas() {
+        return destinos.length;
+    }
+
+    // Retorna el índice de la estación, o -1 si no pertenece a la instantánea.
+    public int indiceDe(Estacion estacion) {
+        if (estacion == null) return -1;
+        Integer indice = indices.get(estacion.getId());
+        return indice == null ? -1 : indice;
+    }
+
+    // Retorna el índice de la estación con ese id, o -1 si no pertenece a la instantánea.
+    public int indiceDe(UUID id) {
+        Integer indice = indices.get(id);
+        return indice == null ? -1 : indice;
+    }
+
+    public Estacion getEstacion(int indice) {
+        return estaciones[indice];
+    }
+
+    public int getTipo(int indice) {
+        return tipos[indice];
+    }
+
+    public double getLatitud(int indice) {
+        return latitudes[indice];
+    }
+
+    public double getLongitud(int indice) {
+        return longitudes[indice];
+    }
+
+    public int getVelocidad(int indice) {
+        return velocidades[indice];
+    }
+
+    // Distancia en línea recta entre las coordenadas de dos estaciones.
+    public double distanciaRecta(int u, int v) {
+        double dLat = latitudes[u] - latitudes[v];
+        double dLon = longitudes[u] - longitudes[v];
+        return Math.sqrt(dLat * dLat + dLon * dLon);
+    }
+
+    // Primera posición de las rutas salientes de la estación.
+    public int inicio(int estacion) {
+        return desplazamientos[estacion];
+    }
+
+    // Posición siguiente a la última ruta saliente de la estación.
+    public int fin(int estacion) {
+        return desplazamientos[estacion + 1];
+    }
+
+    // Primera posición de las rutas entrantes de la estación en la adyacencia inversa.
+    public int inicioEntrantes(int estacion) {
+        return desplazamientosEntrantes[estacion];
+    }
+
+    // Posición siguiente a la última ruta entrante de la estación.
+    public int finEntrantes(int estacion) {
+        return desplazamientosEntrantes[estacion + 1];
+    }
+
+    // Ruta (posición en los arreglos) que ocupa la posición indicada de la adyacencia inversa.
+    public int getAristaEntrante(int posicion) {
+        return aristasEntrantes[posicion];
+    }
+
+    public int getOrigen(int arista) {
+        return origenes[arista];
+    }
+
+    public int getDestino(int arista) {
+        return destinos[arista];
+    }
+
+    public Ruta getRuta(int arista) {
+        return rutas[arista];
+    }
+
+    // Los siguientes arreglos se comparten sin copiar por rendimiento, no deben modificarse.
+    public int[] getDesplazamientos() {
+        return desplazamientos;
+    }
+
+    public int[] getDesplazamientosEntrantes() {
+        return desplazamientosEntrantes;
+    }
+
+    public int[] getAristasEntrantes() {
+        return aristasEntrantes;
+    }
+
+    public int[] getOrigenes() {
+        return origenes;
+    }
+
+    public int[] getDestinos() {
+        return destinos;
+    }
+
+    public double[] getDistancias() {
+        return distancias;
+    }
+
+    public double[] getTiempos() {
+        return tiempos;
+    }
+
+    public double[] getCostos() {
+        return costos;
+    }
+
+    public double[] getPonderaciones() {
+        return ponderaciones;
+    }
+
+    public double[] getTransbordos() {
+        return transbordos;
+    }
+
+    public double[] getPesosTransbordos() {
+        return pesosTransbordos;
+    }
+
+    public int[] getPesosTransbordosEnteros() {
+        return pesosTransbordosEnteros;
+    }
+
+    // Lo que vale un transbordo en los pesos del criterio de transbordos (n + 1).
+    public int getPesoTransbordo() {
+        return estaciones.length + 1;
+    }
+
+    public int[] getDistanciasEnteras() {
+        return distanciasEnteras;
+    }
+
+    // Menor distancia entera de una ruta, 0 si no hay rutas.
+    public int getDistanciaMinima() {
+        return distanciaMinima;
+    }
+
+    // Mayor distancia entera de una ruta, 0 si no hay rutas.
+    public int getDistanciaMaxima() {
+        return distanciaMaxima;
+    }
+}
@@ -8,15 +8,19 @@ Objetivo: Clase objeto del grafo con funcionalidad de crear y eliminar estacione
 */
 public class GrafoTransporte {
     Map<Estacion, List<Ruta>> web;
+    // Versión de modificación, aumenta con cada cambio de estaciones, rutas o pesos.
+    private volatile long version;
 
     public GrafoTransporte() {
         this.web = new HashMap<>();
+        this.version = 0;
     }
 
     // Metodo para agregar una estacion o nodo
     public void agregarEstacion(Estacion estacion) {
         if(!web.containsKey(estacion)) {
             web.put(estacion, new ArrayList<>());
+            marcarModificado();
         }
     }
 
@@ -33,6 +37,7 @@ public class GrafoTransporte {
         }
         // Finalmente, elimina el nodo.
         web.remove(estacion);
+        marcarModificado();
     }
 
     // Metodo para agregar una nueva ruta o arista
@@ -42,6 +47,7 @@ public class GrafoTransporte {
         agregarEstacion(ruta.getDestino());
 
         web.get(ruta.getOrigen()).add(ruta);
+        marcarModificado();
     }
 
     // Metodo para eliminar una ruta.
@@ -54,6 +60,7 @@ public class GrafoTransporte {
             // Elimina si la ruta tiene el mismo destino y el mismo id.
             rutas.removeIf(ruta -> ruta.getDestino().equals(destino) && ruta.getId().equals(id));
         }
+        marcarModificado();
     }
 
     // Metodo para chequear si existe una conexión entre dos estaciones.
@@ -153,11 +160,26 @@ public class GrafoTransporte {
                 ruta.setTiempo(ruta.getTiempo() * numero); //Multiplica por el valor del evento
                 ruta.setCosto(Ruta.calculoDeCosto(ruta.getDestino(),ruta.getDistancia(),ruta.getDestino().getCostoBase()));
                 ruta.setPonderacion(Ruta.CalculoPonderacionArista(ruta.getCosto(),ruta.getTiempo()));
+                marcarModificado();
             }
         }
         return ruta;
     }
 
+    // Metodo para avisar que cambió algo del grafo, también se llama al modificar los pesos de una ruta desde afuera.
+    public void marcarModificado() {
+        version++;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Metodo para crear una instantánea compacta (CSR) del estado actual del grafo.
+    public GrafoCompacto compactar() {
+        return new GrafoCompacto(this);
+    }
+
     public Map<Estacion, List<Ruta>> getWeb() {
         return web;
     }
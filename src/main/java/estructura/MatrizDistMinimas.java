@@ -1,44 +1,398 @@
 package estructura;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
 
 public class MatrizDistMinimas {
+    // Encabezado del archivo binario de la matriz
+    private static final int MAGIA = 0x4D44534D;
+    private static final int VERSION_FORMATO = 1;
+    private static final int CON_CAMINOS = 1;
+    private static final int CON_METRICAS = 2;
+    // Bytes del encabezado antes de los ids: magia, versión, firma, tamaño y banderas
+    private static final int BYTES_ENCABEZADO = 24;
+
     //El array sirve para saber qué número es cada nodo
     private ArrayList<Estacion> estaciones;
+    //El índice de cada estación por su id, para no buscarla recorriendo el array
+    private Map<UUID, Integer> indices;
 
     //La matriz es solo de los valores mínimos de distancia
-    //Pero la primera fila y columna se usa para identificar la relación entre nodo y nodo
-    private float[][] distancias;
+    //Se guarda por filas en un solo bloque: la distancia de i a j está en i * n + j
+    //Los bloques son arreglos envueltos en buffers, o un archivo mapeado en memoria si la matriz se cargó
+    private FloatBuffer distancias;
+    //Siguiente estación del camino mínimo de i a j en la misma posición, -1 si no hay camino
+    //Es null si la matriz se armó sin caminos
+    private IntBuffer siguientes;
+    //Distancia recorrida, tiempo y costo del mismo camino mínimo, cada uno en su propio bloque por filas
+    //Son null si la matriz se armó sin métricas
+    private FloatBuffer distanciasRecorridas;
+    private FloatBuffer tiempos;
+    private FloatBuffer costos;
+
+    /*
+    Clase: Builder
+    Objetivo: Arma la matriz sabiendo de antemano cuántas estaciones tendrá, así el arreglo
+              se reserva una sola vez. Los algoritmos llenan directamente el arreglo por filas
+              y al final se construye la matriz sin copiarlo.
+    */
+    public static class Builder {
+        private final int tamanyo;
+        private final ArrayList<Estacion> estaciones;
+        private final Map<UUID, Integer> indices;
+        private float[] distancias;
+        private int[] siguientes;
+        private float[] distanciasRecorridas;
+        private float[] tiempos;
+        private float[] costos;
+
+        // Reserva la matriz para n estaciones, con 0 en la diagonal e infinito en el resto.
+        public Builder(int n) {
+            tamanyo = n;
+            estaciones = new ArrayList<>(n);
+            indices = new HashMap<>(n * 2);
+            distancias = matrizInfinita(n);
+        }
+
+        // Matriz n x n por filas con 0 en la diagonal e infinito en el resto.
+        private static float[] matrizInfinita(int n) {
+            float[] matriz = new float[n * n];
+            Arrays.fill(matriz, Float.POSITIVE_INFINITY);
+            for (int i = 0; i < n; i++) {
+                matriz[i * n + i] = 0;
+            }
+            return matriz;
+        }
+
+        // Agrega la siguiente estación, su índice es el orden en que se agregó.
+        public Builder agregarEstacion(Estacion estacion) {
+            if (estaciones.size() == tamanyo) {
+                throw new IllegalStateException("La matriz ya tiene sus " + tamanyo + " estaciones");
+            }
+            indices.putIfAbsent(estacion.getId(), estaciones.size());
+            estaciones.add(estacion);
+            return this;
+        }
+
+        public Builder setDistancia(int i, int j, float distancia) {
+            distancias[i * tamanyo + j] = distancia;
+            return this;
+        }
+
+        public float getDistancia(int i, int j) {
+            return distancias[i * tamanyo + j];
+        }
+
+        // Arreglo por filas que se está llenando, para que los algoritmos escriban en él sin copias.
+        public float[] getDistancias() {
+            return distancias;
+        }
+
+        // Reserva también la matriz de siguientes estaciones: i en la diagonal y -1 (sin camino) en el resto.
+        public Builder conSiguientes() {
+            if (siguientes == null) {
+                siguientes = new int[tamanyo * tamanyo];
+                Arrays.fill(siguientes, -1);
+                for (int i = 0; i < tamanyo; i++) {
+                    siguientes[i * tamanyo + i] = i;
+                }
+            }
+            return this;
+        }
+
+        // Arreglo por filas de siguientes estaciones, null si no se pidió con conSiguientes.
+        public int[] getSiguientes() {
+            return siguientes;
+        }
+
+        // Reserva también las matrices de distancia recorrida, tiempo y costo de cada camino, en infinito.
+        public Builder conMetricas() {
+            if (distanciasRecorridas == null) {
+                distanciasRecorridas = matrizInfinita(tamanyo);
+                tiempos = matrizInfinita(tamanyo);
+                costos = matrizInfinita(tamanyo);
+            }
+            return this;
+        }
+
+        // Arreglos por filas de las métricas, null si no se pidieron con conMetricas.
+        public float[] getDistanciasRecorridas() {
+            return distanciasRecorridas;
+        }
+
+        public float[] getTiempos() {
+            return tiempos;
+        }
+
+        public float[] getCostos() {
+            return costos;
+        }
+
+        public int getTamanyo() {
+            return tamanyo;
+        }
+
+        // Entrega la matriz con el arreglo y los índices, el builder no se puede seguir usando.
+        public MatrizDistMinimas construir() {
+            if (estaciones.size() != tamanyo) {
+                throw new IllegalStateException("Faltan estaciones: " + estaciones.size() + " de " + tamanyo);
+            }
+            MatrizDistMinimas matriz = new MatrizDistMinimas(estaciones, indices, FloatBuffer.wrap(distancias));
+            matriz.siguientes = siguientes == null ? null : IntBuffer.wrap(siguientes);
+            if (distanciasRecorridas != null) {
+                matriz.distanciasRecorridas = FloatBuffer.wrap(distanciasRecorridas);
+                matriz.tiempos = FloatBuffer.wrap(tiempos);
+                matriz.costos = FloatBuffer.wrap(costos);
+            }
+            distancias = null;
+            siguientes = null;
+            distanciasRecorridas = null;
+            tiempos = null;
+            costos = null;
+            return matriz;
+        }
+    }
 
    public MatrizDistMinimas() {// Inicialización
         estaciones = new ArrayList<>();
-        distancias = new float[0][0];
+        indices = new HashMap<>();
+        distancias = FloatBuffer.wrap(new float[0]);
     }
+
+    private MatrizDistMinimas(ArrayList<Estacion> estaciones, Map<UUID, Integer> indices, FloatBuffer distancias) {
+        this.estaciones = estaciones;
+        this.indices = indices;
+        this.distancias = distancias;
+    }
+
     //Metodo que agrega estacion al array
+    //Copia toda la matriz en cada llamada, para matrices grandes se usa el Builder
+    //Los caminos y sus métricas dejan de ser válidos al agregar estaciones y se descartan
     public void agregarEstacion(Estacion estacion) {
+        siguientes = null;
+        distanciasRecorridas = null;
+        tiempos = null;
+        costos = null;
+        indices.putIfAbsent(estacion.getId(), estaciones.size());
         estaciones.add(estacion);
         redimensionar();
     }
 
     private void redimensionar() {
+        int anterior = estaciones.size() - 1;
         int nuevoTamanyo = estaciones.size();
-        float[][] nuevaMatriz = new float[nuevoTamanyo][nuevoTamanyo];
+        float[] nuevaMatriz = new float[nuevoTamanyo * nuevoTamanyo];
 
         // Copiar datos antiguos si existen
-        for (int i = 0; i < Math.min(distancias.length, nuevoTamanyo); i++) {
-            for (int j = 0; j < Math.min(distancias.length, nuevoTamanyo); j++) {
-                nuevaMatriz[i][j] = distancias[i][j];
-            }
+        for (int i = 0; i < anterior; i++) {
+            distancias.get(i * anterior, nuevaMatriz, i * nuevoTamanyo, anterior);
         }
 
-        distancias = nuevaMatriz;
+        distancias = FloatBuffer.wrap(nuevaMatriz);
     }
 
+    //Una matriz cargada de archivo se copia a memoria la primera vez que se modifica
     public void setDistancia(int i, int j, float distancia) {
-        distancias[i][j] = distancia;
+        hacerEditable();
+        distancias.put(i * estaciones.size() + j, distancia);
+    }
+
+    /*
+     Si la matriz está mapeada de un archivo (solo lectura) copia sus bloques a arreglos en memoria
+     para poder modificarla; el archivo no cambia. Debe llamarse antes de modificar la matriz desde
+     varios hilos a la vez.
+     */
+    public void hacerEditable() {
+        if (!distancias.isReadOnly()) {
+            return;
+        }
+        distancias = copiar(distancias);
+        if (siguientes != null) {
+            int[] copia = new int[siguientes.capacity()];
+            siguientes.get(0, copia);
+            siguientes = IntBuffer.wrap(copia);
+        }
+        if (distanciasRecorridas != null) {
+            distanciasRecorridas = copiar(distanciasRecorridas);
+            tiempos = copiar(tiempos);
+            costos = copiar(costos);
+        }
+    }
+
+    private static FloatBuffer copiar(FloatBuffer bloque) {
+        float[] copia = new float[bloque.capacity()];
+        bloque.get(0, copia);
+        return FloatBuffer.wrap(copia);
+    }
+
+    // Cambia el valor y la siguiente estación del camino de i a j, por ejemplo al recalcular una columna.
+    public void setCamino(int i, int j, float valor, int siguiente) {
+        hacerEditable();
+        distancias.put(i * estaciones.size() + j, valor);
+        siguientes.put(i * estaciones.size() + j, siguiente);
+    }
+
+    public void setMetricas(int i, int j, float distanciaRecorrida, float tiempo, float costo) {
+        hacerEditable();
+        distanciasRecorridas.put(i * estaciones.size() + j, distanciaRecorrida);
+        tiempos.put(i * estaciones.size() + j, tiempo);
+        costos.put(i * estaciones.size() + j, costo);
+    }
+
+    /*
+     Actualiza la matriz en O(n²) cuando aparece una ruta de u a v con el peso dado, o baja el peso
+     de la que había: el camino de i a j mejora si ir de i a u, tomar la ruta y seguir de v a j cuesta
+     menos. Solo vale con pesos no negativos: así la columna u y la fila v no cambian, ninguna fila
+     escribe lo que leen las otras y las filas se reparten entre los hilos. Un camino que mejora sigue
+     hacia la siguiente estación de i a u (o a v si i es u). Las métricas no se tocan: por el redondeo
+     de los float esa siguiente estación puede quedarse con su camino anterior de igual valor, así que
+     las métricas de las columnas que cambian se vuelven a llenar siguiendo las siguientes estaciones.
+     Retorna los destinos (columnas) con algún camino que mejoró.
+     */
+    public boolean[] relajarRuta(int u, int v, float peso) {
+        hacerEditable();
+        int n = estaciones.size();
+        float[] valores = distancias.array();
+        int[] caminos = siguientes == null ? null : siguientes.array();
+        boolean[] cambiados = new boolean[n];
+
+        IntStream.range(0, n).parallel().forEach(i -> {
+            float hastaU = valores[i * n + u];
+            if (hastaU == Float.POSITIVE_INFINITY) {
+                return;
+            }
+            int fila = i * n;
+            int filaV = v * n;
+            int siguiente = caminos == null ? -1 : (i == u ? v : caminos[fila + u]);
+            for (int j = 0; j < n; j++) {
+                float nuevo = hastaU + peso + valores[filaV + j];
+                if (nuevo < valores[fila + j]) {
+                    valores[fila + j] = nuevo;
+                    cambiados[j] = true;
+                    if (caminos != null) {
+                        caminos[fila + j] = siguiente;
+                    }
+                }
+            }
+        });
+        return cambiados;
+    }
+
+    /*
+     Destinos cuyos caminos usan la ruta de u a v: todo camino hacia j que pasa por esa ruta sigue
+     desde u igual que el camino de u a j, así que basta ver si la siguiente estación de u hacia j es v.
+     */
+    public boolean[] destinosQueUsanRuta(int u, int v) {
+        int n = estaciones.size();
+        boolean[] destinos = new boolean[n];
+        for (int j = 0; j < n; j++) {
+            destinos[j] = j != u && getSiguiente(u, j) == v;
+        }
+        return destinos;
     }
 
     public float getDistancia(int i, int j) {
-        return distancias[i][j];
+        return distancias.get(i * estaciones.size() + j);
+    }
+
+    // Distancia entre dos estaciones, infinito si alguna no está en la matriz.
+    public float getDistancia(Estacion origen, Estacion destino) {
+        int i = indiceDe(origen);
+        int j = indiceDe(destino);
+        if (i < 0 || j < 0) {
+            return Float.POSITIVE_INFINITY;
+        }
+        return getDistancia(i, j);
+    }
+
+    // Índice de la estación en la matriz, o -1 si no está.
+    public int indiceDe(Estacion estacion) {
+        if (estacion == null) return -1;
+        Integer indice = indices.get(estacion.getId());
+        return indice == null ? -1 : indice;
+    }
+
+    // Bloque por filas de solo lectura, compartido sin copiar por rendimiento.
+    public FloatBuffer getDistancias() {
+        return distancias.asReadOnlyBuffer();
+    }
+
+    // Indica si la matriz guarda la distancia, el tiempo y el costo de cada camino.
+    public boolean tieneMetricas() {
+        return distanciasRecorridas != null;
+    }
+
+    // Distancia recorrida por el camino mínimo de i a j, que puede no ser la menor si se eligió por otro criterio.
+    public float getDistanciaRecorrida(int i, int j) {
+        return distanciasRecorridas.get(i * estaciones.size() + j);
+    }
+
+    public float getTiempo(int i, int j) {
+        return tiempos.get(i * estaciones.size() + j);
+    }
+
+    public float getCosto(int i, int j) {
+        return costos.get(i * estaciones.size() + j);
+    }
+
+    // Bloques por filas de las métricas, de solo lectura y sin copiar, para estadísticas o tarifas.
+    public FloatBuffer getDistanciasRecorridas() {
+        return distanciasRecorridas.asReadOnlyBuffer();
+    }
+
+    public FloatBuffer getTiempos() {
+        return tiempos.asReadOnlyBuffer();
+    }
+
+    public FloatBuffer getCostos() {
+        return costos.asReadOnlyBuffer();
+    }
+
+    // Indica si la matriz guarda los caminos además de las distancias.
+    public boolean tieneCaminos() {
+        return siguientes != null;
+    }
+
+    // Siguiente estación del camino mínimo de i a j, i si son la misma y -1 si no hay camino.
+    public int getSiguiente(int i, int j) {
+        return siguientes.get(i * estaciones.size() + j);
+    }
+
+    /*
+     Reconstruye el camino mínimo de i a j siguiendo las siguientes estaciones, en tiempo
+     proporcional a su largo. Retorna los índices de las estaciones desde i hasta j, o null
+     si no hay camino o la matriz no guarda caminos.
+     */
+    public int[] getCamino(int i, int j) {
+        if (siguientes == null || getSiguiente(i, j) < 0) {
+            return null;
+        }
+        int n = estaciones.size();
+        int cantidad = 1;
+        for (int v = i; v != j; v = getSiguiente(v, j)) {
+            // Un camino mínimo no repite estaciones, si pasa de n los datos están corruptos
+            if (++cantidad > n) return null;
+        }
+        int[] camino = new int[cantidad];
+        int posicion = 0;
+        for (int v = i; v != j; v = getSiguiente(v, j)) {
+            camino[posicion++] = v;
+        }
+        camino[posicion] = j;
+        return camino;
     }
 
     public Estacion getEstacion(int i) {
@@ -48,4 +402,135 @@ public class MatrizDistMinimas {
     public int getTamanyo() {
         return estaciones.size();
     }
-}
\ No newline at end of file
+
+    /*
+     Guarda la matriz en un archivo binario: un encabezado con la firma del grafo, los ids de las
+     estaciones en orden y después cada bloque por filas tal cual (valores, siguientes y métricas).
+     Se escribe en un archivo temporal que luego se mueve al nombre final, así nunca queda uno a medias.
+     El archivo final no debe estar mapeado (en Windows no se puede reemplazar), por eso TodosLosPares
+     usa un nombre distinto para cada firma.
+     Retorna false si no se pudo escribir.
+     */
+    public boolean guardar(Path archivo, long firma) {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try {
+            if (archivo.getParent() != null) {
+                Files.createDirectories(archivo.getParent());
+            }
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                int n = estaciones.size();
+                ByteBuffer encabezado = ByteBuffer.allocate(BYTES_ENCABEZADO + n * 16).order(ByteOrder.LITTLE_ENDIAN);
+                encabezado.putInt(MAGIA).putInt(VERSION_FORMATO).putLong(firma).putInt(n)
+                        .putInt((siguientes != null ? CON_CAMINOS : 0) | (distanciasRecorridas != null ? CON_METRICAS : 0));
+                for (Estacion estacion : estaciones) {
+                    encabezado.putLong(estacion.getId().getMostSignificantBits());
+                    encabezado.putLong(estacion.getId().getLeastSignificantBits());
+                }
+                escribir(canal, encabezado.flip());
+
+                escribirBloque(canal, distancias, null);
+                if (siguientes != null) {
+                    escribirBloque(canal, null, siguientes);
+                }
+                if (distanciasRecorridas != null) {
+                    escribirBloque(canal, distanciasRecorridas, null);
+                    escribirBloque(canal, tiempos, null);
+                    escribirBloque(canal, costos, null);
+                }
+            }
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            System.out.println("No se pudo guardar la matriz: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Escribe un bloque de floats o de ints por partes de 1 MB.
+    private static void escribirBloque(FileChannel canal, FloatBuffer valores, IntBuffer enteros) throws IOException {
+        ByteBuffer parte = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        int total = valores != null ? valores.capacity() : enteros.capacity();
+        int porParte = parte.capacity() / 4;
+        for (int inicio = 0; inicio < total; inicio += porParte) {
+            int cantidad = Math.min(porParte, total - inicio);
+            parte.clear();
+            if (valores != null) {
+                parte.asFloatBuffer().put(valores.slice(inicio, cantidad));
+            } else {
+                parte.asIntBuffer().put(enteros.slice(inicio, cantidad));
+            }
+            parte.limit(cantidad * 4);
+            escribir(canal, parte);
+        }
+    }
+
+    private static void escribir(FileChannel canal, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            canal.write(bytes);
+        }
+    }
+
+    /*
+     Carga una matriz guardada mapeando el archivo en memoria: los bloques no se copian al heap,
+     las lecturas van directo a las páginas del archivo y el sistema las carga a medida que se usan.
+     Las estaciones se buscan por id en la instantánea dada. Retorna null si el archivo no existe,
+     no se puede leer, o su firma no coincide (la matriz se calculó para otro estado del grafo).
+     */
+    public static MatrizDistMinimas cargar(Path archivo, long firma, GrafoCompacto grafo) {
+        if (!Files.isReadable(archivo)) {
+            return null;
+        }
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            ByteBuffer encabezado = canal.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(canal.size(), BYTES_ENCABEZADO))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (encabezado.capacity() < BYTES_ENCABEZADO || encabezado.getInt() != MAGIA
+                    || encabezado.getInt() != VERSION_FORMATO || encabezado.getLong() != firma) {
+                return null;
+            }
+            int n = encabezado.getInt();
+            int banderas = encabezado.getInt();
+            long bytesBloque = (long) n * n * 4;
+            int bloques = 1 + ((banderas & CON_CAMINOS) != 0 ? 1 : 0) + ((banderas & CON_METRICAS) != 0 ? 3 : 0);
+            long inicioBloques = BYTES_ENCABEZADO + (long) n * 16;
+            if (n != grafo.getCantEstaciones() || canal.size() != inicioBloques + bloques * bytesBloque) {
+                return null;
+            }
+
+            ByteBuffer ids = canal.map(FileChannel.MapMode.READ_ONLY, BYTES_ENCABEZADO, (long) n * 16)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            ArrayList<Estacion> estaciones = new ArrayList<>(n);
+            Map<UUID, Integer> indices = new HashMap<>(n * 2);
+            for (int i = 0; i < n; i++) {
+                int indice = grafo.indiceDe(new UUID(ids.getLong(), ids.getLong()));
+                if (indice < 0) return null;
+                indices.putIfAbsent(grafo.getEstacion(indice).getId(), i);
+                estaciones.add(grafo.getEstacion(indice));
+            }
+
+            // El mapeo sigue válido después de cerrar el canal
+            long posicion = inicioBloques;
+            MatrizDistMinimas matriz = new MatrizDistMinimas(estaciones, indices,
+                    mapear(canal, posicion, bytesBloque).asFloatBuffer());
+            posicion += bytesBloque;
+            if ((banderas & CON_CAMINOS) != 0) {
+                matriz.siguientes = mapear(canal, posicion, bytesBloque).asIntBuffer();
+                posicion += bytesBloque;
+            }
+            if ((banderas & CON_METRICAS) != 0) {
+                matriz.distanciasRecorridas = mapear(canal, posicion, bytesBloque).asFloatBuffer();
+                matriz.tiempos = mapear(canal, posicion + bytesBloque, bytesBloque).asFloatBuffer();
+                matriz.costos = mapear(canal, posicion + 2 * bytesBloque, bytesBloque).asFloatBuffer();
+            }
+            return matriz;
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("No se pudo cargar la matriz: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Cada bloque se mapea por separado, un mapeo admite hasta 2 GB.
+    private static ByteBuffer mapear(FileChannel canal, long posicion, long bytes) throws IOException {
+        return canal.map(FileChannel.MapMode.READ_ONLY, posicion, bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
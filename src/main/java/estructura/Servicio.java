@@ -123,6 +123,7 @@ public class Servicio {
             ruta.setOrigen(estacion);
             RutaDAO.getInstance().update(ruta);
         }
+        this.mapa.marcarModificado(); // Los pesos de las rutas cambiaron.
     }
 
     public GrafoTransporte getMapa() {
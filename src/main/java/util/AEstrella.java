@@ -0,0 +1,132 @@
+package util;
+
+import estructura.Estacion;
+import estructura.GrafoCompacto;
+import estructura.GrafoTransporte;
+import estructura.ResultadoRuta;
+import util.Dijkstra.Criterio;
+
+import static util.Caminos.*;
+
+/*
+Clase: AEstrella
+Objetivo: Implementación de la búsqueda A* dirigida al destino. Usa como heurística la
+          distancia en línea recta entre las coordenadas de las estaciones, multiplicada por
+          un factor que nunca sobreestima el valor real de las rutas, así que el camino
+          encontrado es el mismo que el de Dijkstra pero explorando menos estaciones.
+*/
+public class AEstrella {
+
+    /*
+     Factores de la heurística para cada criterio sobre una instantánea.
+     Para cada ruta se cumple peso >= factor * distanciaRecta(origen, destino), así por la
+     desigualdad triangular factor * distanciaRecta(v, destino) es una cota inferior del
+     valor de cualquier camino de v al destino. Se calcula una vez por instantánea.
+     */
+    public static class Heuristica {
+        private final GrafoCompacto grafo;
+        private final double[] factores;
+
+        public Heuristica(GrafoCompacto grafo) {
+            this.grafo = grafo;
+            this.factores = new double[Criterio.values().length];
+
+            // El factor de distancia es la menor razón distancia / distancia recta de la red.
+            double factorDistancia = menorRazon(grafo, grafo.getDistancias());
+            factores[Criterio.DISTANCIA.ordinal()] = factorDistancia;
+
+            // El tiempo se estima como la distancia mínima a la velocidad más alta de la red,
+            // acotado por la razón real de las rutas (eventos o velocidad 0 cambian el tiempo).
+            int velocidadMaxima = 0;
+            for (int v = 0; v < grafo.getCantEstaciones(); v++) {
+                velocidadMaxima = Math.max(velocidadMaxima, grafo.getVelocidad(v));
+            }
+            double factorTiempo = velocidadMaxima > 0 ? factorDistancia / velocidadMaxima : 0.0;
+            factores[Criterio.TIEMPO.ordinal()] = Math.min(factorTiempo, menorRazon(grafo, grafo.getTiempos()));
+
+            factores[Criterio.COSTO.ordinal()] = menorRazon(grafo, grafo.getCostos());
+            factores[Criterio.TRANSBORDOS.ordinal()] = menorRazon(grafo, grafo.getPesosTransbordos());
+        }
+
+        public double getFactor(Criterio criterio) {
+            return factores[criterio.ordinal()];
+        }
+
+        public GrafoCompacto getGrafo() {
+            return grafo;
+        }
+
+        // Menor razón peso / distancia recta entre todas las rutas, reducida un poco por el redondeo.
+        private static double menorRazon(GrafoCompacto grafo, double[] pesos) {
+            double menor = Double.POSITIVE_INFINITY;
+            for (int a = 0; a < grafo.getCantRutas(); a++) {
+                double recta = grafo.distanciaRecta(grafo.getOrigen(a), grafo.getDestino(a));
+                // Las estaciones en la misma posición no limitan el factor.
+                if (recta > 0) {
+                    menor = Math.min(menor, pesos[a] / recta);
+                }
+            }
+            if (menor == Double.POSITIVE_INFINITY || menor < 0) {
+                return 0.0;
+            }
+            return menor * (1 - 1e-9);
+        }
+    }
+
+    // Busca la mejor ruta entre dos estaciones con A* para el criterio elegido.
+    public static ResultadoRuta encontrarMejorRuta(GrafoTransporte grafo, Estacion origen, Estacion destino, Criterio criterio) {
+        GrafoCompacto compacto = grafo.compactar();
+        return encontrarMejorRuta(new Heuristica(compacto), origen, destino, criterio);
+    }
+
+    // Misma búsqueda reutilizando la heurística de una instantánea ya construida.
+    public static ResultadoRuta encontrarMejorRuta(Heuristica heuristica, Estacion origen, Estacion destino, Criterio criterio) {
+        GrafoCompacto grafo = heuristica.getGrafo();
+        int indiceOrigen = grafo.indiceDe(origen);
+        int indiceDestino = grafo.indiceDe(destino);
+        if (indiceOrigen < 0 || indiceDestino < 0 || indiceOrigen == indiceDestino) {
+            return null;
+        }
+
+        int[] aristas = buscar(grafo, indiceOrigen, indiceDestino, pesos(grafo, criterio),
+                heuristica.getFactor(criterio), EspacioBusqueda.delHilo());
+        return aristas == null ? null : crearResultadoRuta(grafo, aristas);
+    }
+
+    /*
+     Núcleo de A* sobre índices. La clave de cada estación es el valor acumulado más la
+     estimación factor * distancia recta al destino. Como la heurística es consistente, una
+     estación asentada ya tiene su valor final y la búsqueda termina al asentar el destino.
+     Retorna las rutas del camino, o null si el destino no es alcanzable.
+     */
+    public static int[] buscar(GrafoCompacto grafo, int origen, int destino, double[] pesos, double factor,
+                               EspacioBusqueda espacio) {
+        espacio.preparar(grafo.getCantEstaciones());
+        MonticuloIndexado monticulo = espacio.getMonticulo();
+        int[] desplazamientos = grafo.getDesplazamientos();
+        int[] destinos = grafo.getDestinos();
+
+        espacio.actualizar(origen, 0.0, -1, -1);
+        monticulo.insertarODisminuir(origen, factor * grafo.distanciaRecta(origen, destino));
+
+        while (!monticulo.estaVacio()) {
+            int u = monticulo.extraerMinimo();
+            espacio.asentar(u);
+            if (u == destino) {
+                return Dijkstra.aristasDelArbol(espacio, destino);
+            }
+            double valorActual = espacio.getDistancia(u);
+
+            for (int a = desplazamientos[u]; a < desplazamientos[u + 1]; a++) {
+                int v = destinos[a];
+                if (espacio.estaAsentada(v)) continue;
+                double nuevoValor = valorActual + pesos[a];
+                if (nuevoValor < espacio.getDistancia(v)) {
+                    espacio.actualizar(v, nuevoValor, u, a);
+                    monticulo.insertarODisminuir(v, nuevoValor + factor * grafo.distanciaRecta(v, destino));
+                }
+            }
+        }
+        return null;
+    }
+}
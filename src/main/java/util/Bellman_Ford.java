@@ -1,10 +1,10 @@
 package util;
 
 import estructura.Estacion;
+import estructura.GrafoCompacto;
 import estructura.GrafoTransporte;
 import estructura.ResultadoRuta;
 import estructura.Ruta;
-import java.util.Map;
 import java.util.*;
 
 import static util.Caminos.*;
@@ -18,63 +18,79 @@ public class Bellman_Ford {
 
     // Encuentra el Top 3 de rutas más baratas desde el origen al destino
     public static List<ResultadoRuta> bellmanFordTop3(GrafoTransporte grafo, Estacion origen, Estacion destino) {
-        int cantVertices = grafo.contarEstaciones();
+        return bellmanFordTop3(grafo.compactar(), origen, destino);
+    }
+
+    // Misma búsqueda sobre una instantánea compacta, recorriendo la lista de rutas por índices
+    public static List<ResultadoRuta> bellmanFordTop3(GrafoCompacto grafo, Estacion origen, Estacion destino) {
+        int cantVertices = grafo.getCantEstaciones();
+        int indiceOrigen = grafo.indiceDe(origen);
+        int indiceDestino = grafo.indiceDe(destino);
+        if (indiceOrigen < 0 || indiceDestino < 0) {
+            return null;
+        }
 
         // Almacena hasta 3 mejores caminos por estación
-        Map<Estacion, List<DatoCamino>> mejoresCaminos = new HashMap<>();
+        List<List<DatoCamino>> mejoresCaminos = new ArrayList<>(cantVertices);
 
         // Inicialización de estructuras para todas las estaciones
-        for (Estacion estacion : grafo.getWeb().keySet()) {
-            mejoresCaminos.put(estacion, new ArrayList<>());
+        for (int i = 0; i < cantVertices; i++) {
+            mejoresCaminos.add(new ArrayList<>());
         }
 
         // Camino inicial en el origen con costo 0
-        DatoCamino caminoInicial = new DatoCamino(origen, 0.0, null, 0, null, origen.getTipo().toString());
-        mejoresCaminos.get(origen).add(caminoInicial);
+        DatoCamino caminoInicial = new DatoCamino(origen, indiceOrigen, 0.0, null, -1, 0, null, origen.getTipo().toString());
+        mejoresCaminos.get(indiceOrigen).add(caminoInicial);
 
-        // Lista de todas las rutas del grafo
-        List<Ruta> todasLasRutas = new ArrayList<>();
-        for (Estacion estacion : grafo.getWeb().keySet()) {
-            todasLasRutas.addAll(grafo.getWeb().get(estacion));
-        }
+        // La lista de todas las rutas del grafo son los arreglos paralelos de la instantánea
+        int[] origenes = grafo.getOrigenes();
+        int[] destinos = grafo.getDestinos();
+        double[] costos = grafo.getCostos();
+        int cantRutas = grafo.getCantRutas();
 
         // Recorre todas las rutas una cantidad de Vertices - 1 veces
         for (int i = 1; i < cantVertices; i++) {
             boolean huboActualizacion = false;
 
             // Procesa cada ruta del grafo
-            for (Ruta ruta : todasLasRutas) {
-                Estacion inicio = ruta.getOrigen();
-                Estacion fin = ruta.getDestino();
-                double costo = ruta.getCosto();
+            for (int a = 0; a < cantRutas; a++) {
+                int inicio = origenes[a];
+                int fin = destinos[a];
+                double costo = costos[a];
 
                 // Obtiene todos los caminos conocidos para la estación de inicio
                 List<DatoCamino> caminosInicio = mejoresCaminos.get(inicio);
                 if (caminosInicio.isEmpty()) continue;
 
+                Ruta ruta = grafo.getRuta(a);
+                Estacion estacionFin = grafo.getEstacion(fin);
+                boolean cambiaTipo = grafo.getTipo(inicio) != grafo.getTipo(fin);
+
                 // Evalúa cada camino conocido desde el inicio
                 for (DatoCamino caminoInicio : new ArrayList<>(caminosInicio)) {
                     // Calcula el nuevo costo acumulado
                     double nuevoCosto = caminoInicio.valor + costo;
 
-                    // Calcula transbordos si hay cambio de línea
-                    int nuevosTransbordos = caminoInicio.transbordos;
-                    if (caminoInicio.lineaAnterior != null && !caminoInicio.lineaAnterior.equals(ruta.getId())) {
-                        nuevosTransbordos++;
-                    }
+                    // Calcula transbordos si hay cambio de tipo de transporte
+                    int nuevosTransbordos = caminoInicio.transbordos + (cambiaTipo ? 1 : 0);
 
-                    // Crea el nuevo camino candidato
+                    // El mismo camino ya se extendió con esta ruta en una iteración anterior
+                    List<DatoCamino> caminosFin = mejoresCaminos.get(fin);
+                    if (yaExtendido(caminosFin, caminoInicio, a)) continue;
+
+                    // Crea el nuevo camino candidato apuntando al camino del que se extiende
                     DatoCamino nuevoCamino = new DatoCamino(
+                            caminoInicio,
+                            a,
+                            estacionFin,
                             fin,
                             nuevoCosto,
-                            inicio,
                             nuevosTransbordos,
                             ruta.getId(),
-                            fin.getTipo().toString()
+                            estacionFin.getTipo().toString()
                     );
 
                     // Verifica si este camino debe ser guardado (top 3 por estación)
-                    List<DatoCamino> caminosFin = mejoresCaminos.get(fin);
                     if (debeGuardarCamino(caminosFin, nuevoCamino)) {
                         agregarCamino(caminosFin, nuevoCamino);
                         huboActualizacion = true;
@@ -87,19 +103,15 @@ public class Bellman_Ford {
         }
 
         // Detección de ciclos negativos (una iteración extra)
-        for (Ruta ruta : todasLasRutas) {
-            Estacion inicio = ruta.getOrigen();
-            Estacion fin = ruta.getDestino();
-            double costo = ruta.getCosto();
-
-            List<DatoCamino> caminosInicio = mejoresCaminos.get(inicio);
+        for (int a = 0; a < cantRutas; a++) {
+            List<DatoCamino> caminosInicio = mejoresCaminos.get(origenes[a]);
             if (caminosInicio.isEmpty()) continue;
 
             // Si aún se puede mejorar, hay un ciclo negativo
             for (DatoCamino caminoInicio : caminosInicio) {
-                double nuevoCosto = caminoInicio.valor + costo;
+                double nuevoCosto = caminoInicio.valor + costos[a];
 
-                List<DatoCamino> caminosFin = mejoresCaminos.get(fin);
+                List<DatoCamino> caminosFin = mejoresCaminos.get(destinos[a]);
                 if (!caminosFin.isEmpty() && nuevoCosto < caminosFin.getFirst().valor) {
                     throw new IllegalStateException("El grafo tiene una ruta con costo negativo.");
                 }
@@ -107,28 +119,30 @@ public class Bellman_Ford {
         }
 
         // Obtiene los mejores caminos que llegaron al destino
-        List<DatoCamino> caminosDestino = mejoresCaminos.get(destino);
+        List<DatoCamino> caminosDestino = mejoresCaminos.get(indiceDestino);
         if (caminosDestino.isEmpty()) {
             return null;
         }
 
-        // Reconstruye los caminos completos desde origen hasta destino
-        List<List<Estacion>> caminos = reconstruirCaminos(caminosDestino, mejoresCaminos);
-
-        // Crea los ResultadoRuta para cada camino
+        // Reconstruye cada camino siguiendo las referencias y crea su ResultadoRuta con las rutas exactas
         List<ResultadoRuta> resultados = new ArrayList<>();
-        for (int i = 0; i < caminos.size(); i++) {
-            List<Estacion> camino = caminos.get(i);
-            DatoCamino datoDestino = caminosDestino.get(i);
-
-            // Crea el resultado con las métricas calculadas automáticamente
-            ResultadoRuta resultado = crearResultadoRuta(grafo, camino, datoDestino.transbordos);
-            resultados.add(resultado);
+        for (DatoCamino datoDestino : caminosDestino) {
+            resultados.add(crearResultadoRuta(grafo, aristasDelCamino(datoDestino)));
         }
 
         return resultados;
     }
 
+    // Verifica si la lista ya tiene el camino que resulta de extender el anterior con la ruta
+    private static boolean yaExtendido(List<DatoCamino> caminos, DatoCamino anterior, int arista) {
+        for (DatoCamino existente : caminos) {
+            if (existente.anterior == anterior && existente.arista == arista) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     // Verifica si un nuevo camino debe ser guardado en el top 3
     private static boolean debeGuardarCamino(List<DatoCamino> caminos, DatoCamino nuevo) {
         // Si hay menos de 3 caminos, siempre guardamos
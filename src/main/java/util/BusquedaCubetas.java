@@ -0,0 +1,180 @@
+package util;
+
+import estructura.Estacion;
+import estructura.GrafoCompacto;
+import estructura.ResultadoRuta;
+import util.Dijkstra.Criterio;
+
+import static util.Caminos.*;
+
+/*
+Clase: BusquedaCubetas
+Objetivo: Dijkstra con cola por cubetas (algoritmo de Dial) para pesos enteros. La
+          distancia de una ruta es un entero, así que para el criterio de distancia
+          la busqueda es exacta y no hace operaciones de montículo. El tiempo y el
+          costo se pueden convertir a punto fijo (multiplicar por una escala y
+          redondear) para usar la misma busqueda: la ruta elegida es la mejor con
+          los pesos redondeados, y sus métricas se calculan con los valores reales.
+*/
+public class BusquedaCubetas {
+
+    // Con más cubetas que esto el arreglo circular deja de caber en caché y conviene el montículo.
+    public static final int LIMITE_CUBETAS = 1 << 20;
+
+    // Escalas por defecto del punto fijo: el tiempo en minutos y el costo en centavos.
+    public static final double ESCALA_TIEMPO = 60.0;
+    public static final double ESCALA_COSTO = 100.0;
+
+    /*
+    Clase: PesosEnteros
+    Objetivo: Pesos de las rutas de una instantánea para un criterio, convertidos a enteros
+              no negativos con una escala, junto al mayor peso que define las cubetas.
+    */
+    public static final class PesosEnteros {
+        private final int[] pesos;
+        private final int pesoMaximo;
+        private final double escala;
+
+        private PesosEnteros(int[] pesos, int pesoMaximo, double escala) {
+            this.pesos = pesos;
+            this.pesoMaximo = pesoMaximo;
+            this.escala = escala;
+        }
+
+        /*
+         Pesos enteros del criterio con su escala por defecto. La distancia y los transbordos
+         (transbordo*(n+1)+1, ver GrafoCompacto) ya son enteros y se usan tal cual. Retorna null
+         si algún peso es negativo o si el mayor peso necesita más cubetas que LIMITE_CUBETAS.
+         */
+        public static PesosEnteros de(GrafoCompacto grafo, Criterio criterio) {
+            return switch (criterio) {
+                case DISTANCIA -> grafo.getDistanciaMinima() < 0 || grafo.getDistanciaMaxima() >= LIMITE_CUBETAS
+                        ? null
+                        : new PesosEnteros(grafo.getDistanciasEnteras(), grafo.getDistanciaMaxima(), 1.0);
+                case TIEMPO -> cuantizar(grafo.getTiempos(), ESCALA_TIEMPO);
+                case COSTO -> cuantizar(grafo.getCostos(), ESCALA_COSTO);
+                case TRANSBORDOS -> grafo.getPesoTransbordo() + 1 >= LIMITE_CUBETAS
+                        ? null
+                        : new PesosEnteros(grafo.getPesosTransbordosEnteros(), grafo.getPesoTransbordo() + 1, 1.0);
+            };
+        }
+
+        // Convierte los pesos a punto fijo redondeando peso * escala. Retorna null si no se puede.
+        public static PesosEnteros cuantizar(double[] pesos, double escala) {
+            int[] enteros = new int[pesos.length];
+            long maximo = 0;
+            for (int a = 0; a < pesos.length; a++) {
+                long valor = Math.round(pesos[a] * escala);
+                if (valor < 0 || valor >= LIMITE_CUBETAS) {
+                    return null;
+                }
+                enteros[a] = (int) valor;
+                maximo = Math.max(maximo, valor);
+            }
+            return new PesosEnteros(enteros, (int) maximo, escala);
+        }
+
+        // Los siguientes arreglos se comparten sin copiar por rendimiento, no deben modificarse.
+        public int[] getPesos() {
+            return pesos;
+        }
+
+        public int getPesoMaximo() {
+            return pesoMaximo;
+        }
+
+        public double getEscala() {
+            return escala;
+        }
+    }
+
+    // Busca la mejor ruta única con pesos enteros ya calculados, por ejemplo los de tiempo o costo en punto fijo.
+    public static ResultadoRuta encontrarMejorRuta(GrafoCompacto grafo, Estacion origen, Estacion destino, PesosEnteros pesos) {
+        int indiceOrigen = grafo.indiceDe(origen);
+        int indiceDestino = grafo.indiceDe(destino);
+        if (indiceOrigen < 0 || indiceDestino < 0 || indiceOrigen == indiceDestino) {
+            return null;
+        }
+
+        EspacioBusqueda espacio = EspacioBusqueda.delHilo();
+        if (buscar(grafo, indiceOrigen, indiceDestino, pesos.pesos, pesos.pesoMaximo, espacio) == Long.MAX_VALUE) {
+            return null;
+        }
+        return crearResultadoRuta(grafo, Dijkstra.aristasDelArbol(espacio, indiceDestino));
+    }
+
+    /*
+     Dijkstra con cola por cubetas desde el origen. Se detiene al asentar el destino; si el destino
+     es -1 calcula el árbol completo. Los valores (en unidades de los pesos enteros) y padres quedan
+     en el espacio igual que en Dijkstra. Retorna el valor hasta el destino, o Long.MAX_VALUE si no
+     se alcanza.
+     */
+    public static long buscar(GrafoCompacto grafo, int origen, int destino, int[] pesos, int pesoMaximo,
+                              EspacioBusqueda espacio) {
+        int n = grafo.getCantEstaciones();
+        espacio.preparar(n);
+        ColaCubetas cola = espacio.getCubetas(n, pesoMaximo);
+        int[] desplazamientos = grafo.getDesplazamientos();
+        int[] destinos = grafo.getDestinos();
+
+        espacio.actualizar(origen, 0.0, -1, -1);
+        cola.insertarODisminuir(origen, 0L);
+
+        while (!cola.estaVacia()) {
+            int u = cola.extraerMinimo();
+            espacio.asentar(u);
+            long valorActual = cola.getClave(u);
+            if (u == destino) {
+                return valorActual;
+            }
+
+            for (int a = desplazamientos[u]; a < desplazamientos[u + 1]; a++) {
+                int v = destinos[a];
+                if (espacio.estaAsentada(v)) continue;
+                long nuevoValor = valorActual + pesos[a];
+                // Los valores enteros caben sin error en un double mientras sean menores que 2^53.
+                if (nuevoValor < espacio.getDistancia(v)) {
+                    espacio.actualizar(v, nuevoValor, u, a);
+                    cola.insertarODisminuir(v, nuevoValor);
+                }
+            }
+        }
+        // Si la cola se vació sin asentar el destino, no es alcanzable.
+        return destino < 0 ? 0L : Long.MAX_VALUE;
+    }
+
+    /*
+     Dijkstra con cola por cubetas hacia atrás desde el destino por la adyacencia inversa, calcula
+     el árbol completo. Como en Dijkstra.buscarArbolHaciaDestino, el padre de cada estación es la
+     siguiente estación del camino hacia el destino y la ruta padre es la que lleva a ella.
+     */
+    public static void buscarArbolHaciaDestino(GrafoCompacto grafo, int destino, int[] pesos, int pesoMaximo,
+                                               EspacioBusqueda espacio) {
+        int n = grafo.getCantEstaciones();
+        espacio.preparar(n);
+        ColaCubetas cola = espacio.getCubetas(n, pesoMaximo);
+        int[] desplazamientosEntrantes = grafo.getDesplazamientosEntrantes();
+        int[] aristasEntrantes = grafo.getAristasEntrantes();
+        int[] origenes = grafo.getOrigenes();
+
+        espacio.actualizar(destino, 0.0, -1, -1);
+        cola.insertarODisminuir(destino, 0L);
+
+        while (!cola.estaVacia()) {
+            int v = cola.extraerMinimo();
+            espacio.asentar(v);
+            long valorActual = cola.getClave(v);
+
+            for (int p = desplazamientosEntrantes[v]; p < desplazamientosEntrantes[v + 1]; p++) {
+                int a = aristasEntrantes[p];
+                int u = origenes[a];
+                if (espacio.estaAsentada(u)) continue;
+                long nuevoValor = valorActual + pesos[a];
+                if (nuevoValor < espacio.getDistancia(u)) {
+                    espacio.actualizar(u, nuevoValor, v, a);
+                    cola.insertarODisminuir(u, nuevoValor);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package util;
+
+import estructura.Estacion;
+import estructura.GrafoTransporte;
+import estructura.ResultadoRuta;
+import util.Dijkstra.Criterio;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/*
+Clase: CacheRutas
+Objetivo: Cache acotado de resultados de busqueda de rutas con desalojo LRU (el menos
+          usado recientemente sale primero). La clave incluye la versión del grafo, así
+          un resultado calculado antes de una modificación nunca se devuelve; al ver una
+          versión nueva se descartan todas las entradas viejas. Lleva contadores de
+          aciertos y fallos.
+*/
+public class CacheRutas {
+
+    public static final int CAPACIDAD_PREDETERMINADA = 256;
+    private static final CacheRutas cache = new CacheRutas(CAPACIDAD_PREDETERMINADA);
+
+    // Clave de una busqueda: estaciones por id, criterio y versión del grafo.
+    private static final class Clave {
+        private final UUID origen;
+        private final UUID destino;
+        private final Criterio criterio;
+        private final long version;
+
+        private Clave(Estacion origen, Estacion destino, Criterio criterio, long version) {
+            this.origen = origen.getId();
+            this.destino = destino.getId();
+            this.criterio = criterio;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == null || getClass() != o.getClass()) return false;
+            Clave otra = (Clave) o;
+            return version == otra.version && criterio == otra.criterio
+                    && origen.equals(otra.origen) && destino.equals(otra.destino);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(origen, destino, criterio, version);
+        }
+    }
+
+    private final int capacidad;
+    private final LinkedHashMap<Clave, List<ResultadoRuta>> entradas;
+    private long versionVigente;
+    private long aciertos;
+    private long fallos;
+
+    public CacheRutas(int capacidad) {
+        this.capacidad = Math.max(1, capacidad);
+        // Con orden de acceso, la primera entrada es siempre la menos usada recientemente.
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, List<ResultadoRuta>> mayor) {
+                return size() > CacheRutas.this.capacidad;
+            }
+        };
+        this.versionVigente = -1;
+    }
+
+    // Metodo para conseguir el cache compartido por las pantallas de busqueda.
+    public static CacheRutas getInstance() {
+        return cache;
+    }
+
+    /*
+     Retorna los resultados guardados para la busqueda, o null si no están en el cache.
+     Una lista vacía significa que ya se buscó y no había ruta.
+     */
+    public synchronized List<ResultadoRuta> obtener(GrafoTransporte grafo, Estacion origen, Estacion destino,
+                                                    Criterio criterio) {
+        sincronizarVersion(grafo.getVersion());
+        List<ResultadoRuta> resultados = entradas.get(new Clave(origen, destino, criterio, grafo.getVersion()));
+        if (resultados == null) {
+            fallos++;
+        } else {
+            aciertos++;
+        }
+        return resultados;
+    }
+
+    // Guarda los resultados de una busqueda calculada con la versión indicada del grafo.
+    public synchronized void guardar(long version, Estacion origen, Estacion destino, Criterio criterio,
+                                     List<ResultadoRuta> resultados) {
+        sincronizarVersion(version);
+        // Un resultado calculado sobre una versión que ya cambió no se guarda.
+        if (version != versionVigente) return;
+        entradas.put(new Clave(origen, destino, criterio, version),
+                resultados == null ? List.of() : List.copyOf(resultados));
+    }
+
+    // Descarta las entradas de versiones anteriores cuando el grafo cambia.
+    private void sincronizarVersion(long version) {
+        if (version > versionVigente) {
+            entradas.clear();
+            versionVigente = version;
+        }
+    }
+
+    public synchronized void limpiar() {
+        entradas.clear();
+    }
+
+    public synchronized int getTamanyo() {
+        return entradas.size();
+    }
+
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    public synchronized long getAciertos() {
+        return aciertos;
+    }
+
+    public synchronized long getFallos() {
+        return fallos;
+    }
+
+    // Proporción de busquedas respondidas desde el cache, 0 si no se ha consultado.
+    public synchronized double getTasaAciertos() {
+        long total = aciertos + fallos;
+        return total == 0 ? 0.0 : (double) aciertos / total;
+    }
+}
@@ -1,6 +1,7 @@
 package util;
 
 import estructura.Estacion;
+import estructura.GrafoCompacto;
 import estructura.GrafoTransporte;
 import estructura.ResultadoRuta;
 import estructura.Ruta;
@@ -14,69 +15,111 @@ Objetivo: Clase de utilidad con metodos generales para la implementación
 */
 public class Caminos {
 
-    // Reconstruye múltiples caminos desde una lista de DatoCamino
-    // Retorna una lista donde posición 0 es el mejor camino, 1 el segundo mejor, etc.
-    public static List<List<Estacion>> reconstruirCaminos(List<DatoCamino> datosCaminos,
-                                                          Map<Estacion, List<DatoCamino>> todosCaminos) {
-        List<List<Estacion>> caminos = new ArrayList<>();
-
-        // Procesa cada DatoCamino final para reconstruir su camino completo
-        for (DatoCamino datoFinal : datosCaminos) {
-            List<Estacion> camino = new ArrayList<>();
-            DatoCamino actual = datoFinal;
-
-            // Recorre hacia atrás desde el destino hasta el origen
-            while (actual != null) {
-                camino.addFirst(actual.estacionActual);
+    // Reconstruye el camino de un DatoCamino siguiendo las referencias a los anteriores.
+    // Retorna las rutas (posiciones del GrafoCompacto) desde el origen, en tiempo proporcional al largo del camino.
+    public static int[] aristasDelCamino(DatoCamino datoFinal) {
+        int cantidad = 0;
+        for (DatoCamino actual = datoFinal; actual.anterior != null; actual = actual.anterior) {
+            cantidad++;
+        }
+        int[] aristas = new int[cantidad];
+        for (DatoCamino actual = datoFinal; actual.anterior != null; actual = actual.anterior) {
+            aristas[--cantidad] = actual.arista;
+        }
+        return aristas;
+    }
 
-                // Si no hay predecesor, llegamos al origen
-                if (actual.predecesor == null) {
-                    break;
-                }
+    // Retorna el arreglo de pesos del GrafoCompacto que corresponde al criterio.
+    // En TRANSBORDOS cada ruta pesa transbordo*(n+1)+1, así el valor de un camino
+    // ordena primero por transbordos y después por cantidad de rutas.
+    public static double[] pesos(GrafoCompacto grafo, Dijkstra.Criterio criterio) {
+        switch (criterio) {
+            case DISTANCIA: return grafo.getDistancias();
+            case TIEMPO: return grafo.getTiempos();
+            case COSTO: return grafo.getCostos();
+            default: return grafo.getPesosTransbordos();
+        }
+    }
 
-                // Encuentra el DatoCamino correspondiente al predecesor
-                actual = encontrarDatoCamino(todosCaminos, actual.predecesor, actual);
-            }
+    // Cantidad de transbordos contenida en un valor del criterio TRANSBORDOS
+    // de un grafo con cantEstaciones estaciones.
+    public static int transbordosDeValor(double valor, int cantEstaciones) {
+        return (int) Math.floor(valor / (cantEstaciones + 1));
+    }
 
-            if (!camino.isEmpty()) {
-                caminos.add(camino);
-            }
+    // Valor de un camino en las unidades del criterio: en TRANSBORDOS solo la cantidad de
+    // transbordos, en el resto sin cambios. Infinito y NaN se conservan.
+    public static double valorDelCriterio(double valor, Dijkstra.Criterio criterio, int cantEstaciones) {
+        if (criterio != Dijkstra.Criterio.TRANSBORDOS || Double.isInfinite(valor) || Double.isNaN(valor)) {
+            return valor;
         }
+        return transbordosDeValor(valor, cantEstaciones);
+    }
 
-        return caminos;
+    // Firma de las rutas y sus pesos que no depende del orden de las estaciones en la instantánea.
+    // Sirve para saber si una estructura precalculada sigue siendo válida para otra instantánea.
+    public static long firmaPesos(GrafoCompacto grafo, double[] pesos) {
+        long firma = grafo.getCantRutas();
+        for (int a = 0; a < grafo.getCantRutas(); a++) {
+            Ruta ruta = grafo.getRuta(a);
+            long h = mezclar(ruta.getId());
+            h = mezclar(h ^ mezclar(ruta.getOrigen().getId()));
+            h = mezclar(h ^ mezclar(ruta.getDestino().getId()));
+            h = mezclar(h ^ Double.doubleToLongBits(pesos[a]));
+            firma += h;
+        }
+        return firma;
     }
 
-    // Busca el DatoCamino específico que conecta con el siguiente nodo
-    private static DatoCamino encontrarDatoCamino(Map<Estacion, List<DatoCamino>> todosCaminos,
-                                                  Estacion estacion, DatoCamino siguiente) {
-        List<DatoCamino> datos = todosCaminos.get(estacion);
-        if (datos == null || datos.isEmpty()) {
-            return null;
+    // Firma del conjunto de estaciones de la instantánea, tampoco depende de su orden.
+    public static long firmaEstaciones(GrafoCompacto grafo) {
+        long firma = grafo.getCantEstaciones();
+        for (int v = 0; v < grafo.getCantEstaciones(); v++) {
+            firma += mezclar(grafo.getEstacion(v).getId());
         }
+        return firma;
+    }
 
-        // Busca el DatoCamino que mejor coincida con las características del camino
-        for (DatoCamino dato : datos) {
+    private static long mezclar(UUID id) {
+        return mezclar(id.getMostSignificantBits() ^ mezclar(id.getLeastSignificantBits()));
+    }
 
-            // Coincidencia estricta para el Top-K: la línea anterior debe coincidir o debe ser el origen.
-            if (dato.lineaAnterior != null && siguiente.lineaAnterior != null) {
-                if (dato.lineaAnterior.equals(siguiente.lineaAnterior)) {
-                    return dato;
-                }
-            } else if (dato.lineaAnterior == null && siguiente.predecesor.equals(estacion)) {
-                // Caso especial: estación origen
-                return dato;
-            }
-        }
+    // Función de mezcla de splitmix64 para distribuir los bits.
+    private static long mezclar(long x) {
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
 
-        // Si no se encuentra coincidencia, retorna el primer disponible (lógica anterior/funcional).
-        return datos.getFirst();
+    // Crea ResultadoRuta a partir de la secuencia exacta de rutas (posiciones en el GrafoCompacto),
+    // las métricas se toman de la instantánea para que coincidan con los pesos usados en la busqueda
+    public static ResultadoRuta crearResultadoRuta(GrafoCompacto grafo, int[] aristas) {
+        List<Estacion> camino = new ArrayList<>(aristas.length + 1);
+        List<Ruta> rutas = new ArrayList<>(aristas.length);
+        double distancia = 0;
+        double tiempo = 0;
+        double costo = 0;
+        if (aristas.length > 0) {
+            camino.add(grafo.getEstacion(grafo.getOrigen(aristas[0])));
+        }
+        for (int a : aristas) {
+            camino.add(grafo.getEstacion(grafo.getDestino(a)));
+            rutas.add(grafo.getRuta(a));
+            distancia += grafo.getDistancias()[a];
+            tiempo += grafo.getTiempos()[a];
+            costo += grafo.getCostos()[a];
+        }
+        return new ResultadoRuta(camino, rutas, distancia, tiempo, costo, contarTransbordos(grafo, aristas));
     }
 
-    // Crea ResultadoRuta a partir de un camino y sus datos
-    public static ResultadoRuta crearResultadoRuta(GrafoTransporte grafo, List<Estacion> camino, int transbordos) {
-        ResultadoRuta resultado = new ResultadoRuta(camino, 0, 0, 0, transbordos);
-        resultado.calcularMetricas(grafo);
-        return resultado;
+    // Cuenta los cambios de tipo de transporte entre estaciones consecutivas del camino
+    public static int contarTransbordos(GrafoCompacto grafo, int[] aristas) {
+        double[] transbordos = grafo.getTransbordos();
+        int cantidad = 0;
+        for (int a : aristas) {
+            cantidad += (int) transbordos[a];
+        }
+        return cantidad;
     }
 
     // Metodo para calcular el peso de los árboles de expansion minima de los algoritmos de Prim y Kruskal.
@@ -0,0 +1,125 @@
+package util;
+
+import java.util.Arrays;
+
+/*
+Clase: ColaCubetas
+Objetivo: Cola de prioridad por cubetas (algoritmo de Dial) para claves enteras no
+          negativas. Si el peso máximo de una ruta es C, todas las claves pendientes
+          están entre la clave mínima actual y la mínima + C, así basta un arreglo
+          circular de C + 1 cubetas. Cada cubeta es una lista doblemente enlazada
+          dentro de arreglos de enteros, por lo que insertar, disminuir y extraer
+          no hacen comparaciones ni crean objetos.
+*/
+public class ColaCubetas {
+
+    // Primera estación de cada cubeta, válida solo si la marca de la cubeta es la generación actual.
+    private int[] cabeza;
+    private int[] marcaCubeta;
+    private int cantCubetas;
+
+    // Lista enlazada de cada cubeta y clave de cada estación en la cola.
+    private int[] siguiente;
+    private int[] anterior;
+    private long[] clave;
+    private int[] enCola;
+
+    private int generacion;
+    private int cantidad;
+    private long actual;
+
+    public ColaCubetas(int capacidad, int cubetas) {
+        cabeza = new int[cubetas];
+        marcaCubeta = new int[cubetas];
+        siguiente = new int[capacidad];
+        anterior = new int[capacidad];
+        clave = new long[capacidad];
+        enCola = new int[capacidad];
+        generacion = 0;
+    }
+
+    // Prepara la cola vacía para n estaciones con rutas de peso entero entre 0 y pesoMaximo.
+    public void preparar(int n, int pesoMaximo) {
+        if (n > enCola.length) {
+            int capacidad = Math.max(n, enCola.length * 2);
+            siguiente = Arrays.copyOf(siguiente, capacidad);
+            anterior = Arrays.copyOf(anterior, capacidad);
+            clave = Arrays.copyOf(clave, capacidad);
+            enCola = Arrays.copyOf(enCola, capacidad);
+        }
+        cantCubetas = pesoMaximo + 1;
+        if (cantCubetas > cabeza.length) {
+            int cubetas = Math.max(cantCubetas, cabeza.length * 2);
+            cabeza = Arrays.copyOf(cabeza, cubetas);
+            marcaCubeta = Arrays.copyOf(marcaCubeta, cubetas);
+        }
+        generacion++;
+        if (generacion == Integer.MAX_VALUE) {
+            Arrays.fill(enCola, 0);
+            Arrays.fill(marcaCubeta, 0);
+            generacion = 1;
+        }
+        cantidad = 0;
+        actual = 0;
+    }
+
+    public boolean estaVacia() {
+        return cantidad == 0;
+    }
+
+    public boolean contiene(int estacion) {
+        return enCola[estacion] == generacion;
+    }
+
+    // Inserta la estación o, si ya está en la cola, la mueve a la cubeta de su nueva clave menor.
+    public void insertarODisminuir(int estacion, long nuevaClave) {
+        if (contiene(estacion)) {
+            quitar(estacion);
+        } else {
+            enCola[estacion] = generacion;
+            cantidad++;
+        }
+        clave[estacion] = nuevaClave;
+        int cubeta = (int) (nuevaClave % cantCubetas);
+        int primera = marcaCubeta[cubeta] == generacion ? cabeza[cubeta] : -1;
+        siguiente[estacion] = primera;
+        anterior[estacion] = -1;
+        if (primera >= 0) {
+            anterior[primera] = estacion;
+        }
+        cabeza[cubeta] = estacion;
+        marcaCubeta[cubeta] = generacion;
+    }
+
+    // Saca una estación con la menor clave, avanzando por las cubetas vacías.
+    public int extraerMinimo() {
+        while (true) {
+            int cubeta = (int) (actual % cantCubetas);
+            if (marcaCubeta[cubeta] == generacion && cabeza[cubeta] >= 0) {
+                int estacion = cabeza[cubeta];
+                quitar(estacion);
+                enCola[estacion] = 0;
+                cantidad--;
+                return estacion;
+            }
+            actual++;
+        }
+    }
+
+    public long getClave(int estacion) {
+        return clave[estacion];
+    }
+
+    // Desengancha la estación de la lista de su cubeta.
+    private void quitar(int estacion) {
+        int cubeta = (int) (clave[estacion] % cantCubetas);
+        if (anterior[estacion] >= 0) {
+            siguiente[anterior[estacion]] = siguiente[estacion];
+        } else {
+            cabeza[cubeta] = siguiente[estacion];
+        }
+        if (siguiente[estacion] >= 0) {
+            anterior[siguiente[estacion]] = anterior[estacion];
+        }
+    }
+}
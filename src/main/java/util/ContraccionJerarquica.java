@@ -0,0 +1,670 @@
+package util;
+
+import estructura.Estacion;
+import estructura.GrafoCompacto;
+import estructura.GrafoTransporte;
+import estructura.ResultadoRuta;
+import util.Dijkstra.Criterio;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static util.Caminos.*;
+
+/*
+Clase: ContraccionJerarquica
+Objetivo: Jerarquía de contracción (Contraction Hierarchies) para un criterio. En el
+          preprocesamiento se contraen las estaciones una por una, de menor a mayor
+          importancia, agregando atajos que conservan los caminos más cortos entre sus
+          vecinos. Una consulta solo sube en la jerarquía desde ambos extremos, así
+          visita muy pocas estaciones. Cada atajo recuerda las dos rutas que reemplaza,
+          por lo que el resultado se desempaca a la secuencia exacta de rutas originales.
+          La jerarquía se puede guardar en un archivo y cargar sin volver a calcularla.
+*/
+public class ContraccionJerarquica {
+
+    // Estaciones que puede asentar una búsqueda de testigos antes de rendirse y agregar el atajo.
+    private static final int LIMITE_TESTIGOS = 500;
+    private static final int MAGIA = 0x434A4552;
+    private static final int VERSION_FORMATO = 1;
+
+    private final GrafoCompacto grafo;
+    private final Criterio criterio;
+    private final long firma;
+
+    // Orden de contracción de cada estación, las de mayor nivel son las más importantes.
+    private final int[] nivel;
+
+    // Aristas de la jerarquía: las primeras son las rutas originales y después van los atajos.
+    // Para una ruta original hijoA es su posición en el GrafoCompacto y hijoB es -1; para un atajo
+    // hijoA e hijoB son las dos aristas de la jerarquía que lo forman.
+    private int cantAristas;
+    private int[] origenes;
+    private int[] destinos;
+    private double[] pesos;
+    private int[] hijosA;
+    private int[] hijosB;
+    // Aristas que se usan en las consultas, las reemplazadas por un atajo mejor solo sirven para desempacar.
+    private boolean[] activas;
+
+    // Grafo de consulta: aristas hacia estaciones de mayor nivel por origen y aristas desde
+    // estaciones de mayor nivel por destino, en formato CSR.
+    private int[] desplazamientosSubida;
+    private int[] aristasSubida;
+    private int[] desplazamientosBajada;
+    private int[] aristasBajada;
+
+    // Adyacencia dinámica usada solo durante el preprocesamiento.
+    private int[][] salientes;
+    private int[] cantSalientes;
+    private int[][] entrantes;
+    private int[] cantEntrantes;
+
+    public ContraccionJerarquica(GrafoTransporte grafo, Criterio criterio) {
+        this(grafo.compactar(), criterio);
+    }
+
+    // Construye la jerarquía sobre una instantánea ya creada.
+    public ContraccionJerarquica(GrafoCompacto grafo, Criterio criterio) {
+        this.grafo = grafo;
+        this.criterio = criterio;
+        double[] pesosCriterio = pesos(grafo, criterio);
+        this.firma = firmaPesos(grafo, pesosCriterio);
+        int n = grafo.getCantEstaciones();
+        this.nivel = new int[n];
+
+        iniciarAristas(grafo, pesosCriterio);
+        contraer();
+        salientes = null;
+        entrantes = null;
+        construirGrafoConsulta();
+    }
+
+    // Constructor usado al cargar una jerarquía guardada.
+    private ContraccionJerarquica(GrafoCompacto grafo, Criterio criterio, long firma, int[] nivel, int cantAristas,
+                                  int[] origenes, int[] destinos, double[] pesos, int[] hijosA, int[] hijosB,
+                                  boolean[] activas) {
+        this.grafo = grafo;
+        this.criterio = criterio;
+        this.firma = firma;
+        this.nivel = nivel;
+        this.cantAristas = cantAristas;
+        this.origenes = origenes;
+        this.destinos = destinos;
+        this.pesos = pesos;
+        this.hijosA = hijosA;
+        this.hijosB = hijosB;
+        this.activas = activas;
+        construirGrafoConsulta();
+    }
+
+    public GrafoCompacto getGrafo() {
+        return grafo;
+    }
+
+    public Criterio getCriterio() {
+        return criterio;
+    }
+
+    // Cantidad de atajos agregados durante la contracción.
+    public int getCantAtajos() {
+        return cantAristas - grafo.getCantRutas();
+    }
+
+    // Busca la mejor ruta entre dos estaciones con la jerarquía.
+    public ResultadoRuta encontrarMejorRuta(Estacion origen, Estacion destino) {
+        int indiceOrigen = grafo.indiceDe(origen);
+        int indiceDestino = grafo.indiceDe(destino);
+        if (indiceOrigen < 0 || indiceDestino < 0 || indiceOrigen == indiceDestino) {
+            return null;
+        }
+        int[] aristas = buscar(indiceOrigen, indiceDestino);
+        return aristas == null ? null : crearResultadoRuta(grafo, aristas);
+    }
+
+    // Retorna las rutas originales (posiciones del GrafoCompacto) del mejor camino, o null si no hay.
+    public int[] buscar(int origen, int destino) {
+        EspacioBusqueda adelante = EspacioBusqueda.delHilo();
+        EspacioBusqueda atras = EspacioBusqueda.inversoDelHilo();
+        int encuentro = buscarEncuentro(origen, destino, adelante, atras);
+        if (encuentro < 0) {
+            return null;
+        }
+        return desempacar(aristasDelEncuentro(origen, destino, encuentro, adelante, atras));
+    }
+
+    // Retorna solo el valor del mejor camino, infinito si el destino no es alcanzable.
+    // En TRANSBORDOS el valor es la cantidad de transbordos.
+    public double valor(int origen, int destino) {
+        if (origen == destino) return 0.0;
+        EspacioBusqueda adelante = EspacioBusqueda.delHilo();
+        EspacioBusqueda atras = EspacioBusqueda.inversoDelHilo();
+        int encuentro = buscarEncuentro(origen, destino, adelante, atras);
+        if (encuentro < 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double valor = adelante.getDistancia(encuentro) + atras.getDistancia(encuentro);
+        return valorDelCriterio(valor, criterio, grafo.getCantEstaciones());
+    }
+
+    /*
+     Búsqueda bidireccional que solo sube de nivel: hacia adelante desde el origen y hacia atrás
+     desde el destino. El camino óptimo pasa por su estación de mayor nivel, que ambas búsquedas
+     asientan, así que cada lado se detiene cuando su menor clave ya no mejora el mejor valor.
+     Retorna la estación donde se unen los dos lados, o -1 si no se encontraron.
+     */
+    private int buscarEncuentro(int origen, int destino, EspacioBusqueda adelante, EspacioBusqueda atras) {
+        int n = grafo.getCantEstaciones();
+        adelante.preparar(n);
+        atras.preparar(n);
+        MonticuloIndexado monticuloAdelante = adelante.getMonticulo();
+        MonticuloIndexado monticuloAtras = atras.getMonticulo();
+        adelante.actualizar(origen, 0.0, -1, -1);
+        monticuloAdelante.insertarODisminuir(origen, 0.0);
+        atras.actualizar(destino, 0.0, -1, -1);
+        monticuloAtras.insertarODisminuir(destino, 0.0);
+
+        double mejor = Double.POSITIVE_INFINITY;
+        int encuentro = -1;
+        boolean turnoAdelante = true;
+        while (true) {
+            boolean sigueAdelante = !monticuloAdelante.estaVacio() && monticuloAdelante.claveMinima() < mejor;
+            boolean sigueAtras = !monticuloAtras.estaVacio() && monticuloAtras.claveMinima() < mejor;
+            if (!sigueAdelante && !sigueAtras) break;
+            boolean haciaAdelante = sigueAdelante && (turnoAdelante || !sigueAtras);
+            turnoAdelante = !turnoAdelante;
+
+            EspacioBusqueda espacio = haciaAdelante ? adelante : atras;
+            EspacioBusqueda otro = haciaAdelante ? atras : adelante;
+            MonticuloIndexado monticulo = espacio.getMonticulo();
+            int[] desplazamientos = haciaAdelante ? desplazamientosSubida : desplazamientosBajada;
+            int[] aristas = haciaAdelante ? aristasSubida : aristasBajada;
+            int[] extremos = haciaAdelante ? destinos : origenes;
+
+            int u = monticulo.extraerMinimo();
+            espacio.asentar(u);
+            double valorActual = espacio.getDistancia(u);
+            if (otro.alcanzada(u) && valorActual + otro.getDistancia(u) < mejor) {
+                mejor = valorActual + otro.getDistancia(u);
+                encuentro = u;
+            }
+
+            for (int i = desplazamientos[u]; i < desplazamientos[u + 1]; i++) {
+                int e = aristas[i];
+                int v = extremos[e];
+                double nuevoValor = valorActual + pesos[e];
+                if (nuevoValor < espacio.getDistancia(v)) {
+                    espacio.actualizar(v, nuevoValor, u, e);
+                    monticulo.insertarODisminuir(v, nuevoValor);
+                }
+            }
+        }
+        return encuentro;
+    }
+
+    // Aristas de la jerarquía del camino: del origen al encuentro y luego del encuentro al destino.
+    private int[] aristasDelEncuentro(int origen, int destino, int encuentro, EspacioBusqueda adelante,
+                                      EspacioBusqueda atras) {
+        int cantAdelante = 0;
+        for (int v = encuentro; v != origen; v = adelante.getPadre(v)) cantAdelante++;
+        int cantidad = cantAdelante;
+        for (int v = encuentro; v != destino; v = atras.getPadre(v)) cantidad++;
+
+        int[] camino = new int[cantidad];
+        int i = cantAdelante;
+        for (int v = encuentro; v != origen; v = adelante.getPadre(v)) {
+            camino[--i] = adelante.getAristaPadre(v);
+        }
+        i = cantAdelante;
+        for (int v = encuentro; v != destino; v = atras.getPadre(v)) {
+            camino[i++] = atras.getAristaPadre(v);
+        }
+        return camino;
+    }
+
+    // Reemplaza cada atajo por las rutas originales que representa, conservando el orden.
+    private int[] desempacar(int[] camino) {
+        int[] resultado = new int[camino.length];
+        int cantidad = 0;
+        int[] pila = new int[16];
+        int tope = 0;
+        for (int i = camino.length - 1; i >= 0; i--) {
+            if (tope == pila.length) pila = Arrays.copyOf(pila, tope * 2);
+            pila[tope++] = camino[i];
+        }
+        while (tope > 0) {
+            int e = pila[--tope];
+            if (hijosB[e] < 0) {
+                if (cantidad == resultado.length) resultado = Arrays.copyOf(resultado, cantidad * 2);
+                resultado[cantidad++] = hijosA[e];
+            } else {
+                if (tope + 2 > pila.length) pila = Arrays.copyOf(pila, pila.length * 2);
+                pila[tope++] = hijosB[e];
+                pila[tope++] = hijosA[e];
+            }
+        }
+        return Arrays.copyOf(resultado, cantidad);
+    }
+
+    // Crea las aristas de las rutas originales, dejando activa solo la mejor entre rutas paralelas.
+    private void iniciarAristas(GrafoCompacto grafo, double[] pesosCriterio) {
+        int n = grafo.getCantEstaciones();
+        int m = grafo.getCantRutas();
+        int capacidad = Math.max(16, m * 2);
+        origenes = new int[capacidad];
+        destinos = new int[capacidad];
+        pesos = new double[capacidad];
+        hijosA = new int[capacidad];
+        hijosB = new int[capacidad];
+        activas = new boolean[capacidad];
+        salientes = new int[n][];
+        entrantes = new int[n][];
+        cantSalientes = new int[n];
+        cantEntrantes = new int[n];
+        for (int v = 0; v < n; v++) {
+            salientes[v] = new int[Math.max(2, grafo.fin(v) - grafo.inicio(v))];
+            entrantes[v] = new int[Math.max(2, grafo.finEntrantes(v) - grafo.inicioEntrantes(v))];
+        }
+
+        for (int a = 0; a < m; a++) {
+            int e = nuevaArista(grafo.getOrigen(a), grafo.getDestino(a), pesosCriterio[a], a, -1);
+            // Una ruta de una estación a sí misma nunca forma parte de un camino más corto.
+            if (origenes[e] != destinos[e]) {
+                conectar(e);
+            }
+        }
+    }
+
+    /*
+     Contrae las estaciones por rondas. En cada ronda se eligen las estaciones cuya prioridad es
+     menor que la de todos sus vecinos sin contraer; al no ser vecinas entre sí sus atajos se
+     calculan en paralelo. Luego se aplican los atajos y se recalcula la prioridad de los vecinos.
+     */
+    private void contraer() {
+        int n = grafo.getCantEstaciones();
+        Arrays.fill(nivel, -1);
+        int[] prioridad = new int[n];
+        int[] vecinosContraidos = new int[n];
+        int[] ronda = new int[n];
+        int[] marcaVecino = new int[n];
+
+        IntStream.range(0, n).parallel().forEach(v ->
+                prioridad[v] = calcularPrioridad(v, vecinosContraidos[v], EspacioBusqueda.delHilo()));
+
+        int contraidas = 0;
+        int numRonda = 0;
+        while (contraidas < n) {
+            numRonda++;
+            int[] conjunto = IntStream.range(0, n).parallel()
+                    .filter(v -> nivel[v] < 0 && esMinimoLocal(v, prioridad))
+                    .toArray();
+            for (int v : conjunto) {
+                ronda[v] = numRonda;
+            }
+
+            int rondaActual = numRonda;
+            int[][] atajos = new int[conjunto.length][];
+            IntStream.range(0, conjunto.length).parallel().forEach(i ->
+                    atajos[i] = calcularAtajos(conjunto[i], ronda, rondaActual, EspacioBusqueda.delHilo()));
+
+            // Aplicar los atajos y registrar los vecinos cuya prioridad cambia.
+            int[] vecinos = new int[16];
+            int cantVecinos = 0;
+            for (int i = 0; i < conjunto.length; i++) {
+                int v = conjunto[i];
+                nivel[v] = contraidas++;
+                for (int j = 0; j < atajos[i].length; j += 2) {
+                    agregarAtajo(atajos[i][j], atajos[i][j + 1]);
+                }
+                for (int lado = 0; lado < 2; lado++) {
+                    int[] lista = lado == 0 ? salientes[v] : entrantes[v];
+                    int cantidad = lado == 0 ? cantSalientes[v] : cantEntrantes[v];
+                    for (int k = 0; k < cantidad; k++) {
+                        int x = lado == 0 ? destinos[lista[k]] : origenes[lista[k]];
+                        if (nivel[x] >= 0 || ronda[x] == numRonda) continue;
+                        vecinosContraidos[x]++;
+                        if (marcaVecino[x] != numRonda) {
+                            marcaVecino[x] = numRonda;
+                            if (cantVecinos == vecinos.length) vecinos = Arrays.copyOf(vecinos, cantVecinos * 2);
+                            vecinos[cantVecinos++] = x;
+                        }
+                    }
+                }
+            }
+
+            int[] actualizar = vecinos;
+            IntStream.range(0, cantVecinos).parallel().forEach(i -> {
+                int x = actualizar[i];
+                prioridad[x] = calcularPrioridad(x, vecinosContraidos[x], EspacioBusqueda.delHilo());
+            });
+        }
+    }
+
+    // Verifica si la estación tiene menor prioridad que todos sus vecinos sin contraer (empates por índice).
+    private boolean esMinimoLocal(int v, int[] prioridad) {
+        for (int lado = 0; lado < 2; lado++) {
+            int[] lista = lado == 0 ? salientes[v] : entrantes[v];
+            int cantidad = lado == 0 ? cantSalientes[v] : cantEntrantes[v];
+            for (int k = 0; k < cantidad; k++) {
+                int x = lado == 0 ? destinos[lista[k]] : origenes[lista[k]];
+                if (x == v || nivel[x] >= 0) continue;
+                if (prioridad[x] < prioridad[v] || (prioridad[x] == prioridad[v] && x < v)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Diferencia de aristas: atajos que agregaría la contracción menos las aristas que quita,
+    // más la cantidad de vecinos ya contraídos para repartir la contracción por el grafo.
+    private int calcularPrioridad(int v, int contraidos, EspacioBusqueda espacio) {
+        int atajos = calcularAtajos(v, null, -1, espacio).length / 2;
+        int quitadas = 0;
+        for (int k = 0; k < cantSalientes[v]; k++) {
+            if (nivel[destinos[salientes[v][k]]] < 0) quitadas++;
+        }
+        for (int k = 0; k < cantEntrantes[v]; k++) {
+            if (nivel[origenes[entrantes[v][k]]] < 0) quitadas++;
+        }
+        return atajos - quitadas + contraidos;
+    }
+
+    /*
+     Calcula los atajos necesarios para contraer v. Para cada vecino de entrada u se busca un
+     camino testigo hacia los vecinos de salida sin pasar por v ni por estaciones contraídas o
+     de la ronda actual. Si el testigo no es mejor o igual que pasar por v, se necesita el atajo.
+     Retorna pares (arista de u a v, arista de v a w) en un arreglo plano.
+     */
+    private int[] calcularAtajos(int v, int[] ronda, int rondaActual, EspacioBusqueda espacio) {
+        int[] resultado = new int[8];
+        int cantidad = 0;
+        for (int i = 0; i < cantEntrantes[v]; i++) {
+            int entrada = entrantes[v][i];
+            int u = origenes[entrada];
+            if (!disponible(u, v, ronda, rondaActual)) continue;
+
+            double maximo = -1;
+            for (int j = 0; j < cantSalientes[v]; j++) {
+                int salida = salientes[v][j];
+                int w = destinos[salida];
+                if (w != u && disponible(w, v, ronda, rondaActual)) {
+                    maximo = Math.max(maximo, pesos[entrada] + pesos[salida]);
+                }
+            }
+            if (maximo < 0) continue;
+
+            buscarTestigos(u, v, maximo, ronda, rondaActual, espacio);
+            for (int j = 0; j < cantSalientes[v]; j++) {
+                int salida = salientes[v][j];
+                int w = destinos[salida];
+                if (w == u || !disponible(w, v, ronda, rondaActual)) continue;
+                if (espacio.getDistancia(w) > pesos[entrada] + pesos[salida]) {
+                    if (cantidad + 2 > resultado.length) resultado = Arrays.copyOf(resultado, resultado.length * 2);
+                    resultado[cantidad++] = entrada;
+                    resultado[cantidad++] = salida;
+                }
+            }
+        }
+        return Arrays.copyOf(resultado, cantidad);
+    }
+
+    // Dijkstra local desde u sin pasar por v, acotado por el valor máximo y por LIMITE_TESTIGOS.
+    private void buscarTestigos(int u, int v, double maximo, int[] ronda, int rondaActual, EspacioBusqueda espacio) {
+        espacio.preparar(grafo.getCantEstaciones());
+        MonticuloIndexado monticulo = espacio.getMonticulo();
+        espacio.actualizar(u, 0.0, -1, -1);
+        monticulo.insertarODisminuir(u, 0.0);
+        int asentadas = 0;
+        while (!monticulo.estaVacio() && monticulo.claveMinima() <= maximo && asentadas < LIMITE_TESTIGOS) {
+            int x = monticulo.extraerMinimo();
+            espacio.asentar(x);
+            asentadas++;
+            double valorActual = espacio.getDistancia(x);
+            for (int k = 0; k < cantSalientes[x]; k++) {
+                int e = salientes[x][k];
+                int y = destinos[e];
+                if (!disponible(y, v, ronda, rondaActual)) continue;
+                double nuevoValor = valorActual + pesos[e];
+                if (nuevoValor < espacio.getDistancia(y)) {
+                    espacio.actualizar(y, nuevoValor, x, e);
+                    monticulo.insertarODisminuir(y, nuevoValor);
+                }
+            }
+        }
+    }
+
+    // Una estación se puede usar si no es la que se contrae, no está contraída ni en la ronda actual.
+    private boolean disponible(int x, int v, int[] ronda, int rondaActual) {
+        return x != v && nivel[x] < 0 && (ronda == null || ronda[x] != rondaActual);
+    }
+
+    // Agrega el atajo de u a w que pasa por las dos aristas, salvo que ya exista una arista igual o mejor.
+    private void agregarAtajo(int entrada, int salida) {
+        int u = origenes[entrada];
+        int w = destinos[salida];
+        double valor = pesos[entrada] + pesos[salida];
+        for (int k = 0; k < cantSalientes[u]; k++) {
+            int e = salientes[u][k];
+            if (destinos[e] == w) {
+                if (pesos[e] <= valor) return;
+                // La arista anterior queda solo para desempacar los atajos que ya la usan.
+                desconectar(e);
+                break;
+            }
+        }
+        conectar(nuevaArista(u, w, valor, entrada, salida));
+    }
+
+    private int nuevaArista(int origen, int destino, double peso, int hijoA, int hijoB) {
+        if (cantAristas == origenes.length) {
+            int capacidad = origenes.length * 2;
+            origenes = Arrays.copyOf(origenes, capacidad);
+            destinos = Arrays.copyOf(destinos, capacidad);
+            pesos = Arrays.copyOf(pesos, capacidad);
+            hijosA = Arrays.copyOf(hijosA, capacidad);
+            hijosB = Arrays.copyOf(hijosB, capacidad);
+            activas = Arrays.copyOf(activas, capacidad);
+        }
+        int e = cantAristas++;
+        origenes[e] = origen;
+        destinos[e] = destino;
+        pesos[e] = peso;
+        hijosA[e] = hijoA;
+        hijosB[e] = hijoB;
+        return e;
+    }
+
+    // Agrega la arista a la adyacencia, reemplazando una paralela peor si existe.
+    private void conectar(int e) {
+        int u = origenes[e];
+        int w = destinos[e];
+        for (int k = 0; k < cantSalientes[u]; k++) {
+            int otra = salientes[u][k];
+            if (destinos[otra] == w) {
+                if (pesos[otra] <= pesos[e]) return;
+                desconectar(otra);
+                break;
+            }
+        }
+        if (cantSalientes[u] == salientes[u].length) salientes[u] = Arrays.copyOf(salientes[u], cantSalientes[u] * 2);
+        salientes[u][cantSalientes[u]++] = e;
+        if (cantEntrantes[w] == entrantes[w].length) entrantes[w] = Arrays.copyOf(entrantes[w], cantEntrantes[w] * 2);
+        entrantes[w][cantEntrantes[w]++] = e;
+        activas[e] = true;
+    }
+
+    private void desconectar(int e) {
+        quitar(salientes[origenes[e]], cantSalientes, origenes[e], e);
+        quitar(entrantes[destinos[e]], cantEntrantes, destinos[e], e);
+        activas[e] = false;
+    }
+
+    private static void quitar(int[] lista, int[] cantidades, int estacion, int e) {
+        for (int k = 0; k < cantidades[estacion]; k++) {
+            if (lista[k] == e) {
+                lista[k] = lista[--cantidades[estacion]];
+                return;
+            }
+        }
+    }
+
+    // Construye el grafo de consulta en CSR con las aristas activas que suben o bajan de nivel.
+    private void construirGrafoConsulta() {
+        int n = grafo.getCantEstaciones();
+        desplazamientosSubida = new int[n + 1];
+        desplazamientosBajada = new int[n + 1];
+        for (int e = 0; e < cantAristas; e++) {
+            if (!activas[e]) continue;
+            if (nivel[destinos[e]] > nivel[origenes[e]]) {
+                desplazamientosSubida[origenes[e] + 1]++;
+            } else {
+                desplazamientosBajada[destinos[e] + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            desplazamientosSubida[v + 1] += desplazamientosSubida[v];
+            desplazamientosBajada[v + 1] += desplazamientosBajada[v];
+        }
+        aristasSubida = new int[desplazamientosSubida[n]];
+        aristasBajada = new int[desplazamientosBajada[n]];
+        int[] siguienteSubida = Arrays.copyOf(desplazamientosSubida, n);
+        int[] siguienteBajada = Arrays.copyOf(desplazamientosBajada, n);
+        for (int e = 0; e < cantAristas; e++) {
+            if (!activas[e]) continue;
+            if (nivel[destinos[e]] > nivel[origenes[e]]) {
+                aristasSubida[siguienteSubida[origenes[e]]++] = e;
+            } else {
+                aristasBajada[siguienteBajada[destinos[e]]++] = e;
+            }
+        }
+    }
+
+    /*
+     Guarda la jerarquía en un archivo binario. Las estaciones y las rutas originales se guardan
+     por su id, así la jerarquía se puede cargar sobre otra instantánea del mismo grafo aunque
+     los índices cambien. Retorna false si no se pudo escribir.
+     */
+    public boolean guardar(Path archivo) {
+        try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(archivo)))) {
+            salida.writeInt(MAGIA);
+            salida.writeInt(VERSION_FORMATO);
+            salida.writeUTF(criterio.name());
+            salida.writeLong(firma);
+
+            int n = grafo.getCantEstaciones();
+            salida.writeInt(n);
+            for (int v = 0; v < n; v++) {
+                UUID id = grafo.getEstacion(v).getId();
+                salida.writeLong(id.getMostSignificantBits());
+                salida.writeLong(id.getLeastSignificantBits());
+                salida.writeInt(nivel[v]);
+            }
+
+            salida.writeInt(cantAristas);
+            for (int e = 0; e < cantAristas; e++) {
+                salida.writeInt(origenes[e]);
+                salida.writeInt(destinos[e]);
+                salida.writeDouble(pesos[e]);
+                salida.writeBoolean(activas[e]);
+                if (hijosB[e] < 0) {
+                    UUID ruta = grafo.getRuta(hijosA[e]).getId();
+                    salida.writeLong(ruta.getMostSignificantBits());
+                    salida.writeLong(ruta.getLeastSignificantBits());
+                } else {
+                    salida.writeInt(hijosA[e]);
+                    salida.writeInt(hijosB[e]);
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            System.out.println("No se pudo guardar la jerarquía: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /*
+     Carga una jerarquía guardada para la instantánea dada. Retorna null si el archivo no se puede
+     leer o si fue calculada para otras rutas o pesos, en ese caso hay que volver a construirla.
+     También retorna null si el archivo está truncado o dañado: cada estación y cada arista leída
+     se revisa antes de usarla, así un archivo malo no falla recién al desempacar un camino.
+     */
+    public static ContraccionJerarquica cargar(Path archivo, GrafoCompacto grafo) {
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(archivo)))) {
+            if (entrada.readInt() != MAGIA || entrada.readInt() != VERSION_FORMATO) {
+                return null;
+            }
+            Criterio criterio = Criterio.valueOf(entrada.readUTF());
+            long firma = entrada.readLong();
+            int n = entrada.readInt();
+            if (n != grafo.getCantEstaciones() || firma != firmaPesos(grafo, pesos(grafo, criterio))) {
+                return null;
+            }
+
+            // Índice de cada estación del archivo en la instantánea actual.
+            int[] indices = new int[n];
+            int[] nivel = new int[n];
+            for (int i = 0; i < n; i++) {
+                int v = grafo.indiceDe(new UUID(entrada.readLong(), entrada.readLong()));
+                if (v < 0) return null;
+                indices[i] = v;
+                nivel[v] = entrada.readInt();
+            }
+
+            Map<UUID, Integer> posicionRuta = new HashMap<>(grafo.getCantRutas() * 2);
+            for (int a = 0; a < grafo.getCantRutas(); a++) {
+                posicionRuta.put(grafo.getRuta(a).getId(), a);
+            }
+
+            int cantAristas = entrada.readInt();
+            if (cantAristas < grafo.getCantRutas()) {
+                return null;
+            }
+            int[] origenes = new int[cantAristas];
+            int[] destinos = new int[cantAristas];
+            double[] pesos = new double[cantAristas];
+            int[] hijosA = new int[cantAristas];
+            int[] hijosB = new int[cantAristas];
+            boolean[] activas = new boolean[cantAristas];
+            for (int e = 0; e < cantAristas; e++) {
+                int origen = entrada.readInt();
+                int destino = entrada.readInt();
+                if (origen < 0 || origen >= n || destino < 0 || destino >= n) {
+                    return null;
+                }
+                origenes[e] = indices[origen];
+                destinos[e] = indices[destino];
+                pesos[e] = entrada.readDouble();
+                activas[e] = entrada.readBoolean();
+                if (e < grafo.getCantRutas()) {
+                    Integer ruta = posicionRuta.get(new UUID(entrada.readLong(), entrada.readLong()));
+                    if (ruta == null || grafo.getOrigen(ruta) != origenes[e] || grafo.getDestino(ruta) != destinos[e]) {
+                        return null;
+                    }
+                    hijosA[e] = ruta;
+                    hijosB[e] = -1;
+                } else {
+                    hijosA[e] = entrada.readInt();
+                    hijosB[e] = entrada.readInt();
+                    // Un atajo se crea después de las dos aristas que reemplaza, así desempacar siempre termina
+                    if (hijosA[e] < 0 || hijosA[e] >= e || hijosB[e] < 0 || hijosB[e] >= e
+                            || origenes[hijosA[e]] != origenes[e] || destinos[hijosA[e]] != origenes[hijosB[e]]
+                            || destinos[hijosB[e]] != destinos[e]) {
+                        return null;
+                    }
+                }
+            }
+            return new ContraccionJerarquica(grafo, criterio, firma, nivel, cantAristas,
+                    origenes, destinos, pesos, hijosA, hijosB, activas);
+        } catch (IOException | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.out.println("No se pudo cargar la jerarquía: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -17,9 +17,15 @@ public class DatoCamino implements Comparable<DatoCamino> {
     // El valor acumulado del camino (Distancia, Costo, Tiempo, etc.)
     public final double valor;
 
+    // Índice de la estación actual en el GrafoCompacto (-1 si no aplica)
+    public final int indice;
+
     // La estación inmediatamente anterior en este camino
     public final Estacion predecesor;
 
+    // Índice de la estación anterior en el GrafoCompacto (-1 si no hay predecesor)
+    public final int indicePredecesor;
+
     // Número de transbordos acumulados
     public final int transbordos;
 
@@ -29,13 +35,45 @@ public class DatoCamino implements Comparable<DatoCamino> {
     // Tipo de la estación anterior (necesario para el criterio de Transbordos)
     public final String tipoAnterior;
 
+    // DatoCamino del que se extiende este camino (null en el origen). Los caminos alternativos
+    // comparten sus prefijos, y el camino completo se recorre siguiendo esta referencia.
+    public final DatoCamino anterior;
+
+    // Ruta (posición en el GrafoCompacto) con la que se llegó desde el anterior, -1 si no aplica
+    public final int arista;
+
     public DatoCamino(Estacion actual, double val, Estacion pred, int trans, UUID linea, String tipo) {
+        this(actual, -1, val, pred, -1, trans, linea, tipo);
+    }
+
+    // Constructor para los algoritmos que recorren el GrafoCompacto por índices.
+    public DatoCamino(Estacion actual, int indice, double val, Estacion pred, int indicePred,
+                      int trans, UUID linea, String tipo) {
         this.estacionActual = actual;
+        this.indice = indice;
         this.valor = val;
         this.predecesor = pred;
+        this.indicePredecesor = indicePred;
+        this.transbordos = trans;
+        this.lineaAnterior = linea;
+        this.tipoAnterior = tipo;
+        this.anterior = null;
+        this.arista = -1;
+    }
+
+    // Constructor que extiende un camino existente con una ruta más del GrafoCompacto.
+    public DatoCamino(DatoCamino anterior, int arista, Estacion actual, int indice, double val,
+                      int trans, UUID linea, String tipo) {
+        this.estacionActual = actual;
+        this.indice = indice;
+        this.valor = val;
+        this.predecesor = anterior.estacionActual;
+        this.indicePredecesor = anterior.indice;
         this.transbordos = trans;
         this.lineaAnterior = linea;
         this.tipoAnterior = tipo;
+        this.anterior = anterior;
+        this.arista = arista;
     }
 
     /*
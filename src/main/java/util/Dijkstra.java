@@ -1,11 +1,15 @@
 package util;
 
 import estructura.Estacion;
+import estructura.GrafoCompacto;
 import estructura.GrafoTransporte;
-import estructura. ResultadoRuta;
-import estructura.Ruta;
+import estructura.ResultadoRuta;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import static util.Caminos.*;
 
@@ -23,186 +27,280 @@ public class Dijkstra {
         TRANSBORDOS
     }
 
-    private static final int CAMINOS_POR_ESTACION = 15;
+    // Cantidad de rutas alternativas que se muestran en la busqueda.
+    public static final int CANT_RUTAS_TOP = 3;
 
     public static List<ResultadoRuta> EncontrarTop3Rutas(GrafoTransporte grafo, Estacion origen, Estacion destino, Criterio criterio) {
         if (!grafo.getWeb().containsKey(origen) || !grafo.getWeb().containsKey(destino) || origen.equals(destino)) {
             return null;
         }
+        return EncontrarTop3Rutas(grafo.compactar(), origen, destino, criterio);
+    }
 
-        Map<Estacion, List<DatoCamino>> mejoresCaminos = new HashMap<>();
+    // Misma búsqueda sobre una instantánea compacta ya construida, usa los k caminos simples de Yen.
+    public static List<ResultadoRuta> EncontrarTop3Rutas(GrafoCompacto grafo, Estacion origen, Estacion destino, Criterio criterio) {
+        return Yen.encontrarKRutas(grafo, origen, destino, criterio, CANT_RUTAS_TOP);
+    }
 
-        for (Estacion estacion : grafo.getWeb().keySet()) {
-            mejoresCaminos.put(estacion, new ArrayList<>());
+    /*
+     Calcula el Top 3 para los cuatro criterios a la vez, cada uno como una subtarea del ejecutor.
+     Espera a que terminen todas, así el tiempo total es el de la busqueda más lenta y no la suma.
+     Si el hilo se interrumpe mientras espera, las subtareas pendientes se cancelan.
+     Los criterios sin ruta quedan con una lista vacía.
+     */
+    public static Map<Criterio, List<ResultadoRuta>> EncontrarTop3RutasPorCriterio(GrafoCompacto grafo, Estacion origen,
+                                                                                  Estacion destino, ExecutorService ejecutor)
+            throws InterruptedException, ExecutionException {
+        List<Callable<List<ResultadoRuta>>> subtareas = new ArrayList<>();
+        for (Criterio criterio : Criterio.values()) {
+            subtareas.add(() -> EncontrarTop3Rutas(grafo, origen, destino, criterio));
         }
+        List<Future<List<ResultadoRuta>>> futuros = ejecutor.invokeAll(subtareas);
 
-        PriorityQueue<DatoCamino> cola = new PriorityQueue<>();
-
-        DatoCamino inicio = new DatoCamino(origen, 0.0, null, 0, null, origen.getTipo().toString());
-        cola.add(inicio);
-        mejoresCaminos.get(origen).add(inicio);
+        Map<Criterio, List<ResultadoRuta>> resultados = new EnumMap<>(Criterio.class);
+        for (Criterio criterio : Criterio.values()) {
+            List<ResultadoRuta> rutas = futuros.get(criterio.ordinal()).get();
+            resultados.put(criterio, rutas == null ? List.of() : rutas);
+        }
+        return resultados;
+    }
 
-        List<DatoCamino> caminosDestino = new ArrayList<>();
+    // Busca la mejor ruta única entre dos estaciones para el criterio elegido.
+    public static ResultadoRuta EncontrarMejorRuta(GrafoTransporte grafo, Estacion origen, Estacion destino, Criterio criterio) {
+        return EncontrarMejorRuta(grafo.compactar(), origen, destino, criterio);
+    }
 
-        while (!cola.isEmpty()) {
-            DatoCamino actual = cola.poll();
-            Estacion estacionActual = actual.estacionActual;
+    // Misma búsqueda sobre una instantánea compacta ya construida.
+    public static ResultadoRuta EncontrarMejorRuta(GrafoCompacto grafo, Estacion origen, Estacion destino, Criterio criterio) {
+        int indiceOrigen = grafo.indiceDe(origen);
+        int indiceDestino = grafo.indiceDe(destino);
+        if (indiceOrigen < 0 || indiceDestino < 0 || indiceOrigen == indiceDestino) {
+            return null;
+        }
 
-            if (estacionActual.equals(destino)) {
-                caminosDestino.add(actual);
-                continue;
-            }
+        EspacioBusqueda espacio = EspacioBusqueda.delHilo();
+        double valor = buscarMejorCamino(grafo, indiceOrigen, indiceDestino, pesos(grafo, criterio), espacio);
+        if (valor == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        return crearResultadoRuta(grafo, aristasDelArbol(espacio, indiceDestino));
+    }
 
-            if (!grafo.getWeb().containsKey(estacionActual)) continue;
+    // Busca la mejor ruta única avanzando a la vez desde el origen y desde el destino.
+    public static ResultadoRuta EncontrarMejorRutaBidireccional(GrafoTransporte grafo, Estacion origen, Estacion destino, Criterio criterio) {
+        return EncontrarMejorRutaBidireccional(grafo.compactar(), origen, destino, criterio);
+    }
 
-            for (Ruta ruta : grafo.getWeb().get(estacionActual)) {
-                Estacion vecino = ruta.getDestino();
+    // Misma búsqueda sobre una instantánea compacta ya construida.
+    public static ResultadoRuta EncontrarMejorRutaBidireccional(GrafoCompacto grafo, Estacion origen, Estacion destino, Criterio criterio) {
+        int indiceOrigen = grafo.indiceDe(origen);
+        int indiceDestino = grafo.indiceDe(destino);
+        if (indiceOrigen < 0 || indiceDestino < 0 || indiceOrigen == indiceDestino) {
+            return null;
+        }
 
-                double valorRuta = obtenerValorRuta(ruta, criterio);
-                double nuevoValor = actual.valor + valorRuta;
+        int[] aristas = buscarBidireccional(grafo, indiceOrigen, indiceDestino, pesos(grafo, criterio),
+                EspacioBusqueda.delHilo(), EspacioBusqueda.inversoDelHilo());
+        return aristas == null ? null : crearResultadoRuta(grafo, aristas);
+    }
 
-                int nuevosTransbordos = actual.transbordos;
-                boolean hayTransbordo = calcularTransbordo(criterio, actual, ruta, vecino);
-                if (hayTransbordo) {
-                    nuevosTransbordos++;
+    /*
+     Dijkstra bidireccional: una búsqueda avanza desde el origen por las rutas salientes y otra
+     desde el destino por la adyacencia inversa, expandiendo siempre el lado con la menor clave.
+     Cada vez que una ruta conecta estaciones alcanzadas por ambos lados se actualiza el mejor
+     valor conocido (mu). Se detiene cuando la suma de las claves mínimas de ambos lados ya no
+     puede mejorar mu, lo que ocurre cerca de la mitad del camino.
+     Retorna las rutas del mejor camino, o null si el destino no es alcanzable.
+     */
+    public static int[] buscarBidireccional(GrafoCompacto grafo, int origen, int destino, double[] pesos,
+                                            EspacioBusqueda adelante, EspacioBusqueda atras) {
+        int n = grafo.getCantEstaciones();
+        adelante.preparar(n);
+        atras.preparar(n);
+        MonticuloIndexado colaAdelante = adelante.getMonticulo();
+        MonticuloIndexado colaAtras = atras.getMonticulo();
+        int[] desplazamientos = grafo.getDesplazamientos();
+        int[] destinos = grafo.getDestinos();
+        int[] desplazamientosEntrantes = grafo.getDesplazamientosEntrantes();
+        int[] aristasEntrantes = grafo.getAristasEntrantes();
+        int[] origenes = grafo.getOrigenes();
+
+        adelante.actualizar(origen, 0.0, -1, -1);
+        colaAdelante.insertarODisminuir(origen, 0.0);
+        atras.actualizar(destino, 0.0, -1, -1);
+        colaAtras.insertarODisminuir(destino, 0.0);
+
+        double mejorValor = Double.POSITIVE_INFINITY;
+        int encuentro = -1;
+
+        while (!colaAdelante.estaVacio() && !colaAtras.estaVacio()) {
+            // Regla de parada: ningún camino por estaciones aún no asentadas puede ser mejor.
+            if (colaAdelante.claveMinima() + colaAtras.claveMinima() >= mejorValor) break;
+
+            if (colaAdelante.claveMinima() <= colaAtras.claveMinima()) {
+                int u = colaAdelante.extraerMinimo();
+                adelante.asentar(u);
+                double valorActual = adelante.getDistancia(u);
+                for (int a = desplazamientos[u]; a < desplazamientos[u + 1]; a++) {
+                    int v = destinos[a];
+                    double nuevoValor = valorActual + pesos[a];
+                    if (!adelante.estaAsentada(v) && nuevoValor < adelante.getDistancia(v)) {
+                        adelante.actualizar(v, nuevoValor, u, a);
+                        colaAdelante.insertarODisminuir(v, nuevoValor);
+                    }
+                    // Si la búsqueda hacia atrás ya alcanzó v, esta ruta une ambos lados.
+                    if (atras.alcanzada(v) && nuevoValor + atras.getDistancia(v) < mejorValor) {
+                        mejorValor = nuevoValor + atras.getDistancia(v);
+                        encuentro = v;
+                    }
                 }
-
-                DatoCamino nuevoCamino = new DatoCamino(
-                        vecino,
-                        nuevoValor,
-                        estacionActual,
-                        nuevosTransbordos,
-                        ruta.getId(),
-                        vecino.getTipo().toString()
-                );
-
-                if (debeGuardarCamino(mejoresCaminos.get(vecino), nuevoCamino)) {
-                    agregarCamino(mejoresCaminos.get(vecino), nuevoCamino);
-                    cola.add(nuevoCamino);
+            } else {
+                int v = colaAtras.extraerMinimo();
+                atras.asentar(v);
+                double valorActual = atras.getDistancia(v);
+                for (int p = desplazamientosEntrantes[v]; p < desplazamientosEntrantes[v + 1]; p++) {
+                    int a = aristasEntrantes[p];
+                    int u = origenes[a];
+                    double nuevoValor = valorActual + pesos[a];
+                    if (!atras.estaAsentada(u) && nuevoValor < atras.getDistancia(u)) {
+                        atras.actualizar(u, nuevoValor, v, a);
+                        colaAtras.insertarODisminuir(u, nuevoValor);
+                    }
+                    if (adelante.alcanzada(u) && nuevoValor + adelante.getDistancia(u) < mejorValor) {
+                        mejorValor = nuevoValor + adelante.getDistancia(u);
+                        encuentro = u;
+                    }
                 }
             }
         }
 
-        if (caminosDestino.isEmpty()) {
+        if (encuentro < 0) {
             return null;
         }
-
-        Collections.sort(caminosDestino);
-
-        List<DatoCamino> top3Unicos = obtenerTop3Unicos(caminosDestino, mejoresCaminos);
-
-        // Reconstruir solo los caminos únicos
-        List<List<Estacion>> caminos = reconstruirCaminos(top3Unicos, mejoresCaminos);
-
-        List<ResultadoRuta> resultados = new ArrayList<>();
-        for (int i = 0; i < caminos.size(); i++) {
-            List<Estacion> camino = caminos.get(i);
-            DatoCamino datoDestino = top3Unicos.get(i);
-
-            ResultadoRuta resultado = crearResultadoRuta(grafo, camino, datoDestino. transbordos);
-            resultados.add(resultado);
-        }
-
-        return resultados;
+        return unirCaminos(grafo, adelante, atras, encuentro);
     }
 
-    // Metodo para Obtener top 3 únicos sin duplicados
-    private static List<DatoCamino> obtenerTop3Unicos(List<DatoCamino> todosLosCaminos, Map<Estacion, List<DatoCamino>> mejoresCaminos) {
-        List<DatoCamino> unicos = new ArrayList<>();
-        Set<List<UUID>> caminosVistos = new HashSet<>();
-
-        for (DatoCamino dato : todosLosCaminos) {
-            if (unicos.size() >= 3) break;
-
-            // Reconstruir el camino
-            List<Estacion> camino = reconstruirUnCamino(dato, mejoresCaminos);
-
-            // Crear firma del camino (secuencia de IDs de estaciones)
-            List<UUID> ids = new ArrayList<>();
-            for (Estacion e : camino) {
-                ids.add(e.getId());
-            }
-
-            // Solo agregar si no es duplicado
-            if (!caminosVistos.contains(ids)) {
-                unicos.add(dato);
-                caminosVistos.add(ids);
-            }
+    // Une las rutas del origen al punto de encuentro con las del punto de encuentro al destino.
+    static int[] unirCaminos(GrafoCompacto grafo, EspacioBusqueda adelante, EspacioBusqueda atras, int encuentro) {
+        int[] primeraParte = aristasDelArbol(adelante, encuentro);
+        int cantidad = primeraParte.length;
+        for (int v = encuentro; atras.getAristaPadre(v) >= 0; v = atras.getPadre(v)) {
+            cantidad++;
         }
-
-        return unicos;
+        int[] aristas = Arrays.copyOf(primeraParte, cantidad);
+        int i = primeraParte.length;
+        for (int v = encuentro; atras.getAristaPadre(v) >= 0; v = atras.getPadre(v)) {
+            aristas[i++] = atras.getAristaPadre(v);
+        }
+        return aristas;
     }
 
-    // Reconstruir un solo camino
-    private static List<Estacion> reconstruirUnCamino(DatoCamino destino, Map<Estacion, List<DatoCamino>> mejoresCaminos) {
-        List<Estacion> camino = new ArrayList<>();
-        DatoCamino actual = destino;
-
-        while (actual != null) {
-            camino.add(0, actual.estacionActual);
-
-            if (actual.predecesor == null) {
-                break;
+    /*
+     Dijkstra de un solo camino sobre los índices del GrafoCompacto.
+     Usa el montículo indexado del espacio de trabajo con disminución de clave, por lo que
+     no crea objetos por cada ruta relajada. Se detiene al asentar el destino; si el destino
+     es -1 calcula el árbol completo desde el origen. Las distancias y padres quedan en el espacio.
+     Retorna el valor hasta el destino, o infinito si no se alcanza.
+     */
+    public static double buscarMejorCamino(GrafoCompacto grafo, int origen, int destino, double[] pesos, EspacioBusqueda espacio) {
+        // Las distancias y los transbordos son enteros, para ellos la cola por cubetas evita el montículo.
+        BusquedaCubetas.PesosEnteros enteros = pesosEnteros(grafo, pesos);
+        if (enteros != null) {
+            long valor = BusquedaCubetas.buscar(grafo, origen, destino, enteros.getPesos(),
+                    enteros.getPesoMaximo(), espacio);
+            return valor == Long.MAX_VALUE ? Double.POSITIVE_INFINITY : valor;
+        }
+        espacio.preparar(grafo.getCantEstaciones());
+        MonticuloIndexado monticulo = espacio.getMonticulo();
+        int[] desplazamientos = grafo.getDesplazamientos();
+        int[] destinos = grafo.getDestinos();
+
+        espacio.actualizar(origen, 0.0, -1, -1);
+        monticulo.insertarODisminuir(origen, 0.0);
+
+        while (!monticulo.estaVacio()) {
+            int u = monticulo.extraerMinimo();
+            espacio.asentar(u);
+            double valorActual = espacio.getDistancia(u);
+            if (u == destino) {
+                return valorActual;
             }
 
-            List<DatoCamino> candidatos = mejoresCaminos.get(actual.predecesor);
-            DatoCamino siguiente = null;
-
-            if (candidatos != null) {
-                for (DatoCamino c : candidatos) {
-                    if (c.estacionActual.equals(actual.predecesor)) {
-                        siguiente = c;
-                        break;
-                    }
+            for (int a = desplazamientos[u]; a < desplazamientos[u + 1]; a++) {
+                int v = destinos[a];
+                if (espacio.estaAsentada(v)) continue;
+                double nuevoValor = valorActual + pesos[a];
+                if (nuevoValor < espacio.getDistancia(v)) {
+                    espacio.actualizar(v, nuevoValor, u, a);
+                    monticulo.insertarODisminuir(v, nuevoValor);
                 }
             }
-
-            actual = siguiente;
         }
 
-        return camino;
+        return destino < 0 ? 0.0 : espacio.getDistancia(destino);
     }
 
-    private static double obtenerValorRuta(Ruta ruta, Criterio criterio) {
-        switch (criterio) {
-            case DISTANCIA: return ruta.getDistancia();
-            case TIEMPO: return ruta.getTiempo();
-            case COSTO: return ruta.getCosto();
-            case TRANSBORDOS: return 1.0;
-            default: return 0.0;
+    /*
+     Dijkstra hacia atrás desde el destino usando la adyacencia inversa del GrafoCompacto.
+     Calcula el árbol completo: en el espacio queda el valor de cada estación hasta el destino,
+     y como padre la siguiente estación del camino junto a la ruta que lleva a ella.
+     */
+    public static void buscarArbolHaciaDestino(GrafoCompacto grafo, int destino, double[] pesos, EspacioBusqueda espacio) {
+        BusquedaCubetas.PesosEnteros enteros = pesosEnteros(grafo, pesos);
+        if (enteros != null) {
+            BusquedaCubetas.buscarArbolHaciaDestino(grafo, destino, enteros.getPesos(),
+                    enteros.getPesoMaximo(), espacio);
+            return;
         }
-    }
-
-    private static boolean calcularTransbordo(Criterio criterio, DatoCamino actual, Ruta ruta, Estacion vecino) {
-        if (criterio == Criterio.TRANSBORDOS) {
-            String tipoVecino = vecino.getTipo().toString();
-            return actual.tipoAnterior != null && !actual.tipoAnterior.equals(tipoVecino);
-        } else {
-            return actual.lineaAnterior != null && !actual.lineaAnterior.equals(ruta.getId());
+        espacio.preparar(grafo.getCantEstaciones());
+        MonticuloIndexado monticulo = espacio.getMonticulo();
+        int[] desplazamientosEntrantes = grafo.getDesplazamientosEntrantes();
+        int[] aristasEntrantes = grafo.getAristasEntrantes();
+        int[] origenes = grafo.getOrigenes();
+
+        espacio.actualizar(destino, 0.0, -1, -1);
+        monticulo.insertarODisminuir(destino, 0.0);
+
+        while (!monticulo.estaVacio()) {
+            int v = monticulo.extraerMinimo();
+            espacio.asentar(v);
+            double valorActual = espacio.getDistancia(v);
+
+            for (int p = desplazamientosEntrantes[v]; p < desplazamientosEntrantes[v + 1]; p++) {
+                int a = aristasEntrantes[p];
+                int u = origenes[a];
+                if (espacio.estaAsentada(u)) continue;
+                double nuevoValor = valorActual + pesos[a];
+                if (nuevoValor < espacio.getDistancia(u)) {
+                    espacio.actualizar(u, nuevoValor, v, a);
+                    monticulo.insertarODisminuir(u, nuevoValor);
+                }
+            }
         }
     }
 
-    // Metodo para guardar camino
-    private static boolean debeGuardarCamino(List<DatoCamino> caminos, DatoCamino nuevo) {
-        if (caminos.size() < CAMINOS_POR_ESTACION) {
-            return true;
+    // Pesos enteros equivalentes si los pesos son las distancias o los transbordos de la instantánea
+    // y caben en la cola por cubetas, o null si hay que usar el montículo.
+    private static BusquedaCubetas.PesosEnteros pesosEnteros(GrafoCompacto grafo, double[] pesos) {
+        if (pesos == grafo.getDistancias()) {
+            return BusquedaCubetas.PesosEnteros.de(grafo, Criterio.DISTANCIA);
         }
-
-        for (DatoCamino existente : caminos) {
-            if (nuevo.compareTo(existente) < 0) {
-                return true;
-            }
+        if (pesos == grafo.getPesosTransbordos()) {
+            return BusquedaCubetas.PesosEnteros.de(grafo, Criterio.TRANSBORDOS);
         }
-
-        return false;
+        return null;
     }
 
-    private static void agregarCamino(List<DatoCamino> caminos, DatoCamino nuevo) {
-        caminos.add(nuevo);
-        Collections.sort(caminos);
-
-        while (caminos.size() > CAMINOS_POR_ESTACION) {
-            caminos.remove(caminos.size() - 1);
+    // Recorre los padres del árbol de búsqueda desde el destino y retorna las rutas en orden.
+    static int[] aristasDelArbol(EspacioBusqueda espacio, int destino) {
+        int cantidad = 0;
+        for (int v = destino; espacio.getAristaPadre(v) >= 0; v = espacio.getPadre(v)) {
+            cantidad++;
+        }
+        int[] aristas = new int[cantidad];
+        for (int v = destino; espacio.getAristaPadre(v) >= 0; v = espacio.getPadre(v)) {
+            aristas[--cantidad] = espacio.getAristaPadre(v);
         }
+        return aristas;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,160 @@
+package util;
+
+import java.util.Arrays;
+
+/*
+Clase: EspacioBusqueda
+Objetivo: Arreglos de trabajo reutilizables para las búsquedas sobre el GrafoCompacto.
+          Cada hilo tiene su propio espacio, así una búsqueda no reserva memoria
+          en el ciclo principal. En vez de limpiar los arreglos en cada búsqueda
+          se usa un número de generación: una entrada solo es válida si su marca
+          coincide con la generación actual.
+*/
+public class EspacioBusqueda {
+
+    private static final ThreadLocal<EspacioBusqueda> POR_HILO = ThreadLocal.withInitial(() -> new EspacioBusqueda(16));
+    // Segundo espacio por hilo para las búsquedas que avanzan desde ambos extremos a la vez.
+    private static final ThreadLocal<EspacioBusqueda> INVERSO_POR_HILO = ThreadLocal.withInitial(() -> new EspacioBusqueda(16));
+
+    // Valor acumulado desde el origen, estación anterior y ruta (posición en el GrafoCompacto) usada para llegar.
+    private double[] distancia;
+    private int[] padre;
+    private int[] aristaPadre;
+    // Generación en la que se alcanzó y en la que se asentó cada estación.
+    private int[] marca;
+    private int[] asentado;
+    private int generacion;
+
+    // Estaciones y rutas excluidas de la búsqueda (por ejemplo en los desvíos de Yen), también por generación.
+    private int[] nodoBloqueado;
+    private int[] aristaBloqueada;
+    private int generacionBloqueo;
+
+    private final MonticuloIndexado monticulo;
+    // Cola por cubetas para los pesos enteros, se crea la primera vez que se usa.
+    private ColaCubetas cubetas;
+
+    public EspacioBusqueda(int capacidad) {
+        distancia = new double[capacidad];
+        padre = new int[capacidad];
+        aristaPadre = new int[capacidad];
+        marca = new int[capacidad];
+        asentado = new int[capacidad];
+        generacion = 0;
+        nodoBloqueado = new int[capacidad];
+        aristaBloqueada = new int[capacidad];
+        generacionBloqueo = 0;
+        monticulo = new MonticuloIndexado(capacidad);
+    }
+
+    // Metodo para conseguir el espacio de trabajo del hilo actual.
+    public static EspacioBusqueda delHilo() {
+        return POR_HILO.get();
+    }
+
+    // Metodo para conseguir el segundo espacio del hilo actual, usado por la búsqueda hacia atrás.
+    public static EspacioBusqueda inversoDelHilo() {
+        return INVERSO_POR_HILO.get();
+    }
+
+    // Prepara el espacio para una nueva búsqueda sobre n estaciones.
+    public void preparar(int n) {
+        if (n > marca.length) {
+            int capacidad = Math.max(n, marca.length * 2);
+            distancia = Arrays.copyOf(distancia, capacidad);
+            padre = Arrays.copyOf(padre, capacidad);
+            aristaPadre = Arrays.copyOf(aristaPadre, capacidad);
+            marca = Arrays.copyOf(marca, capacidad);
+            asentado = Arrays.copyOf(asentado, capacidad);
+            monticulo.asegurarCapacidad(capacidad);
+        }
+        monticulo.limpiar();
+        generacion++;
+        // Si el contador da la vuelta, se limpian las marcas para no confundir generaciones viejas.
+        if (generacion == Integer.MAX_VALUE) {
+            Arrays.fill(marca, 0);
+            Arrays.fill(asentado, 0);
+            generacion = 1;
+        }
+    }
+
+    // Quita todos los bloqueos, dejando espacio para n estaciones y m rutas.
+    public void limpiarBloqueos(int n, int m) {
+        if (n > nodoBloqueado.length) {
+            nodoBloqueado = Arrays.copyOf(nodoBloqueado, Math.max(n, nodoBloqueado.length * 2));
+        }
+        if (m > aristaBloqueada.length) {
+            aristaBloqueada = Arrays.copyOf(aristaBloqueada, Math.max(m, aristaBloqueada.length * 2));
+        }
+        generacionBloqueo++;
+        if (generacionBloqueo == Integer.MAX_VALUE) {
+            Arrays.fill(nodoBloqueado, 0);
+            Arrays.fill(aristaBloqueada, 0);
+            generacionBloqueo = 1;
+        }
+    }
+
+    public void bloquearNodo(int estacion) {
+        nodoBloqueado[estacion] = generacionBloqueo;
+    }
+
+    public void bloquearArista(int arista) {
+        aristaBloqueada[arista] = generacionBloqueo;
+    }
+
+    public boolean nodoBloqueado(int estacion) {
+        return nodoBloqueado[estacion] == generacionBloqueo;
+    }
+
+    public boolean aristaBloqueada(int arista) {
+        return aristaBloqueada[arista] == generacionBloqueo;
+    }
+
+    public MonticuloIndexado getMonticulo() {
+        return monticulo;
+    }
+
+    // Cola por cubetas del espacio, vacía y lista para n estaciones con pesos entre 0 y pesoMaximo.
+    public ColaCubetas getCubetas(int n, int pesoMaximo) {
+        if (cubetas == null) {
+            cubetas = new ColaCubetas(Math.max(n, 16), pesoMaximo + 1);
+        }
+        cubetas.preparar(n, pesoMaximo);
+        return cubetas;
+    }
+
+    // Distancia conocida hasta la estación, infinito si no se ha alcanzado en esta búsqueda.
+    public double getDistancia(int estacion) {
+        return marca[estacion] == generacion ? distancia[estacion] : Double.POSITIVE_INFINITY;
+    }
+
+    public boolean alcanzada(int estacion) {
+        return marca[estacion] == generacion;
+    }
+
+    // Registra una mejor distancia y la ruta con la que se llegó.
+    public void actualizar(int estacion, double valor, int anterior, int arista) {
+        distancia[estacion] = valor;
+        padre[estacion] = anterior;
+        aristaPadre[estacion] = arista;
+        marca[estacion] = generacion;
+    }
+
+    public boolean estaAsentada(int estacion) {
+        return asentado[estacion] == generacion;
+    }
+
+    public void asentar(int estacion) {
+        asentado[estacion] = generacion;
+    }
+
+    // Estación anterior en el árbol de búsqueda, -1 para el origen.
+    public int getPadre(int estacion) {
+        return padre[estacion];
+    }
+
+    // Ruta usada para llegar a la estación, -1 para el origen.
+    public int getAristaPadre(int estacion) {
+        return aristaPadre[estacion];
+    }
+}
@@ -1,11 +1,14 @@
 package util;
 
 import estructura.Estacion;
+import estructura.GrafoCompacto;
 import estructura.GrafoTransporte;
 import estructura.MatrizDistMinimas;
-import java.util.List;
-import estructura.Ruta;
 import javafx.scene.control.TextArea;
+import util.Dijkstra.Criterio;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
 
 /*
 Clase: FloydWarshall
@@ -14,106 +17,196 @@ El algoritmo encuentra las distancias mínimas entre todos los pares de estacion
 */
 public class FloydWarshall {
 
+    // Lado de los bloques: 64 x 64 floats son 16 KB, tres bloques caben en la caché L1 o L2.
+    public static final int TAMANYO_BLOQUE = 64;
+
     // Metodo para ejecutar el algoritmo de Floyd-Warshall
     public static MatrizDistMinimas calcularDistanciasMinimas(GrafoTransporte grafo) {
-        // Crear la matriz que almacenara las distancias mínimas
-        MatrizDistMinimas matrizDistancias = new MatrizDistMinimas();
+        return calcularDistanciasMinimas(grafo.compactar());
+    }
 
-        // Esto asigna un índice a cada estacion
-        for (Estacion estacion : grafo.getWeb().keySet()) {
-            matrizDistancias.agregarEstacion(estacion);
-        }
+    // Mismo algoritmo sobre una instantánea compacta con el criterio de distancia.
+    public static MatrizDistMinimas calcularDistanciasMinimas(GrafoCompacto grafo) {
+        return calcularDistanciasMinimas(grafo, Criterio.DISTANCIA);
+    }
 
+    /*
+     Mismo algoritmo sobre una instantánea compacta, para cualquier criterio.
+     Los índices de la matriz son los de la instantánea.
+     La matriz se guarda en un solo arreglo float por filas y se recorre por bloques de
+     TAMANYO_BLOQUE x TAMANYO_BLOQUE, que caben en la caché. En cada fase k primero se actualiza
+     el bloque diagonal, después los bloques de su fila y su columna, y al final el resto; los
+     bloques de cada paso no dependen entre sí y se reparten entre los hilos del ForkJoinPool.
+     */
+    public static MatrizDistMinimas calcularDistanciasMinimas(GrafoCompacto grafo, Criterio criterio) {
         // Obtener el número total de estaciones
-        int n = matrizDistancias.getTamanyo();
+        int n = grafo.getCantEstaciones();
 
-        // Recorremos toda la matriz para establecer valores iniciales
+        // El builder reserva la matriz una sola vez, con distancia 0 de un nodo a si mismo e infinito entre nodos diferentes.
+        // Esto asigna un índice a cada estacion, el mismo de la instantánea
+        MatrizDistMinimas.Builder matriz = new MatrizDistMinimas.Builder(n).conSiguientes();
         for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                if (i == j) {
-                    // La distancia de un nodo a si mismo es 0
-                    matrizDistancias.setDistancia(i, j, 0);
-                } else {
-                    // Inicialmente, la distancia entre nodos diferentes es infinito
-                    // (asumimos que no hay conexión directa hasta que se demuestre lo contrario)
-                    matrizDistancias.setDistancia(i, j, Float.POSITIVE_INFINITY);
-                }
+            matriz.agregarEstacion(grafo.getEstacion(i));
+        }
+        float[] distancias = matriz.getDistancias();
+        int[] siguientes = matriz.getSiguientes();
+
+        // Para cada ruta (arista) de la instantánea, el destino ya viene como índice
+        int[] origenes = grafo.getOrigenes();
+        int[] destinos = grafo.getDestinos();
+        double[] pesos = Caminos.pesos(grafo, criterio);
+        // Cantidad de rutas de cada camino: 0 en la diagonal, 1 con ruta directa y el máximo si no hay camino
+        short[] saltos = null;
+        if (necesitaSaltos(pesos, n)) {
+            saltos = new short[n * n];
+            Arrays.fill(saltos, Short.MAX_VALUE);
+            for (int i = 0; i < n; i++) {
+                saltos[i * n + i] = 0;
             }
         }
-
-        // Recorremos cada estacion origen
-        for (int i = 0; i < n; i++) {
-            Estacion origen = matrizDistancias.getEstacion(i);
-            List<Ruta> rutas = grafo.getWeb().get(origen);
-
-            // Si la estación tiene rutas salientes
-            if (rutas != null) {
-                // Para cada ruta (arista) que sale de esta estación
-                for (Ruta ruta : rutas) {
-                    // Buscar el índice de la estación destino en la matriz
-                    for (int j = 0; j < n; j++) {
-                        if (matrizDistancias.getEstacion(j).equals(ruta.getDestino())) {
-                            // Establecer la distancia directa entre origen i y destino j
-                            matrizDistancias.setDistancia(i, j, ruta.getDistancia());
-                            break;
-                        }
-                    }
+        for (int a = 0; a < grafo.getCantRutas(); a++) {
+            int i = origenes[a];
+            int j = destinos[a];
+            // Establecer la distancia directa entre origen i y destino j, la menor si hay rutas paralelas
+            if (i != j && pesos[a] < distancias[i * n + j]) {
+                distancias[i * n + j] = (float) pesos[a];
+                // Con una ruta directa la siguiente estación es el destino
+                siguientes[i * n + j] = j;
+                if (saltos != null) {
+                    saltos[i * n + j] = 1;
                 }
             }
         }
 
-        // Verifica si es más corto ir directo de i a j, o pasar por un nodo intermedio k.
+        calcularEnArreglo(distancias, siguientes, saltos, n);
+        // Distancia, tiempo y costo de cada camino encontrado
+        TodosLosPares.llenarMetricas(grafo, criterio, matriz);
 
-        // k es el nodo intermedio que estamos considerando
-        for (int k = 0; k < n; k++) {
-            // i es el nodo origen
-            for (int i = 0; i < n; i++) {
-                // j es el nodo destino
-                for (int j = 0; j < n; j++) {
-                    // Obtener la distancia actual de i a j (puede ser directa o ya optimizada)
-                    float distanciaActual = matrizDistancias.getDistancia(i, j);
+        // Retornar la matriz con todas las distancias mínimas calculadas
+        return matriz.construir();
+    }
 
-                    // Calcular la distancia si pasamos por k: dist(i,k) + dist(k,j)
-                    float distanciaPorK = matrizDistancias.getDistancia(i, k) + matrizDistancias.getDistancia(k, j);
+    /*
+     Con rutas de peso 0 hay varios caminos con el mismo valor, y el orden de los bloques puede
+     desempatar distinto en cada celda hasta formar ciclos al seguir las siguientes estaciones.
+     En ese caso se desempata por la menor cantidad de rutas, así cada paso del camino acorta lo
+     que falta. Los saltos se guardan en short, alcanza mientras n quepa en un short.
+     */
+    private static boolean necesitaSaltos(double[] pesos, int n) {
+        if (n > Short.MAX_VALUE / 2) return false;
+        for (double peso : pesos) {
+            if (peso == 0.0) return true;
+        }
+        return false;
+    }
 
-                    // Si pasar por k es más corto, actualizamos la distancia
-                    if (distanciaPorK < distanciaActual) {
-                        matrizDistancias.setDistancia(i, j, distanciaPorK);
+    /*
+     Floyd-Warshall por bloques sobre una matriz n x n guardada por filas, la modifica en su lugar.
+     Si siguientes no es null, cada vez que se mejora i -> j pasando por k la siguiente estación
+     de i a j pasa a ser la de i a k. Si saltos no es null, a igual valor gana el camino con menos rutas.
+     */
+    public static void calcularEnArreglo(float[] distancias, int[] siguientes, short[] saltos, int n) {
+        int bloques = (n + TAMANYO_BLOQUE - 1) / TAMANYO_BLOQUE;
+
+        // k recorre los bloques de nodos intermedios que estamos considerando
+        for (int k = 0; k < bloques; k++) {
+            int bk = k;
+            // El bloque diagonal solo depende de sí mismo
+            actualizarBloque(distancias, siguientes, saltos, n, bk, bk, bk);
+
+            // Los bloques de la fila y la columna de k dependen solo del diagonal
+            IntStream.range(0, bloques * 2).parallel().forEach(t -> {
+                int otro = t % bloques;
+                if (otro == bk) return;
+                if (t < bloques) {
+                    actualizarBloque(distancias, siguientes, saltos, n, bk, otro, bk);
+                } else {
+                    actualizarBloque(distancias, siguientes, saltos, n, otro, bk, bk);
+                }
+            });
+
+            // El resto depende de su bloque en la columna y en la fila de k, cada hilo toma una fila de bloques
+            IntStream.range(0, bloques).parallel().forEach(bi -> {
+                if (bi == bk) return;
+                for (int bj = 0; bj < bloques; bj++) {
+                    if (bj != bk) {
+                        actualizarBloque(distancias, siguientes, saltos, n, bi, bj, bk);
                     }
-                    // Al terminar todos los k, tendremos las distancias mínimas entre todos los pares
                 }
-            }
+            });
         }
-
-        // Retornar la matriz con todas las distancias mínimas calculadas
-        return matrizDistancias;
     }
 
-    // Metodo para obtener la distancia mínima entre dos estaciones específicas
-    public static float getDistanciaMinima(MatrizDistMinimas matrizDistancias, Estacion origen, Estacion destino) {
-        int n = matrizDistancias.getTamanyo();
-        int indiceOrigen = -1;
-        int indiceDestino = -1;
-
-        // Buscar el índice de la estación origen en la matriz
-        for (int i = 0; i < n; i++) {
-            if (matrizDistancias.getEstacion(i).equals(origen)) {
-                indiceOrigen = i;
-            }
-            // Buscar el índice de la estación destino en la matriz
-            if (matrizDistancias.getEstacion(i).equals(destino)) {
-                indiceDestino = i;
+    /*
+     Verifica para cada i del bloque bi y j del bloque bj si es más corto pasar por algún nodo
+     intermedio k del bloque bk. Con k en el ciclo exterior sirve también cuando el bloque se
+     actualiza con sus propios valores (diagonal, fila y columna de k).
+     */
+    private static void actualizarBloque(float[] distancias, int[] siguientes, short[] saltos, int n,
+                                         int bi, int bj, int bk) {
+        if (saltos != null) {
+            actualizarBloqueConSaltos(distancias, siguientes, saltos, n, bi, bj, bk);
+            return;
+        }
+        int finI = Math.min(n, (bi + 1) * TAMANYO_BLOQUE);
+        int inicioJ = bj * TAMANYO_BLOQUE;
+        int finJ = Math.min(n, inicioJ + TAMANYO_BLOQUE);
+        int finK = Math.min(n, (bk + 1) * TAMANYO_BLOQUE);
+        for (int k = bk * TAMANYO_BLOQUE; k < finK; k++) {
+            int filaK = k * n;
+            for (int i = bi * TAMANYO_BLOQUE; i < finI; i++) {
+                int filaI = i * n;
+                float distanciaIK = distancias[filaI + k];
+                // Si no hay camino de i a k, pasar por k no mejora nada
+                if (distanciaIK == Float.POSITIVE_INFINITY) continue;
+                for (int j = inicioJ; j < finJ; j++) {
+                    // Calcular la distancia si pasamos por k: dist(i,k) + dist(k,j)
+                    float distanciaPorK = distanciaIK + distancias[filaK + j];
+                    if (distanciaPorK < distancias[filaI + j]) {
+                        distancias[filaI + j] = distanciaPorK;
+                        if (siguientes != null) {
+                            siguientes[filaI + j] = siguientes[filaI + k];
+                        }
+                    }
+                }
             }
         }
+    }
 
-        // Si ambas estaciones existen en la matriz
-        if (indiceOrigen != -1 && indiceDestino != -1) {
-            // Retornar la distancia mínima precalculada.
-            return matrizDistancias.getDistancia(indiceOrigen, indiceDestino);
+    // Igual que actualizarBloque, pero a igual valor se queda con el camino de menos rutas.
+    private static void actualizarBloqueConSaltos(float[] distancias, int[] siguientes, short[] saltos, int n,
+                                                  int bi, int bj, int bk) {
+        int finI = Math.min(n, (bi + 1) * TAMANYO_BLOQUE);
+        int inicioJ = bj * TAMANYO_BLOQUE;
+        int finJ = Math.min(n, inicioJ + TAMANYO_BLOQUE);
+        int finK = Math.min(n, (bk + 1) * TAMANYO_BLOQUE);
+        for (int k = bk * TAMANYO_BLOQUE; k < finK; k++) {
+            int filaK = k * n;
+            for (int i = bi * TAMANYO_BLOQUE; i < finI; i++) {
+                int filaI = i * n;
+                float distanciaIK = distancias[filaI + k];
+                if (distanciaIK == Float.POSITIVE_INFINITY) continue;
+                int saltosIK = saltos[filaI + k];
+                for (int j = inicioJ; j < finJ; j++) {
+                    float distanciaPorK = distanciaIK + distancias[filaK + j];
+                    if (distanciaPorK > distancias[filaI + j] || distanciaPorK == Float.POSITIVE_INFINITY) continue;
+                    int saltosPorK = saltosIK + saltos[filaK + j];
+                    if (distanciaPorK < distancias[filaI + j] || saltosPorK < saltos[filaI + j]) {
+                        distancias[filaI + j] = distanciaPorK;
+                        saltos[filaI + j] = (short) saltosPorK;
+                        if (siguientes != null) {
+                            siguientes[filaI + j] = siguientes[filaI + k];
+                        }
+                    }
+                }
+            }
         }
+    }
 
-        // Si alguna estación no existe, retornar infinito (no hay camino)
-        return Float.POSITIVE_INFINITY;
+    // Metodo para obtener la distancia mínima entre dos estaciones específicas
+    // Si alguna estación no existe en la matriz retorna infinito (no hay camino)
+    public static float getDistanciaMinima(MatrizDistMinimas matrizDistancias, Estacion origen, Estacion destino) {
+        return matrizDistancias.getDistancia(origen, destino);
     }
 
     public static void imprimirMatrizDistanciasEnTextoArea(MatrizDistMinimas matrizDistancias, TextArea txtArea) {
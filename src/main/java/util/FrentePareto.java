@@ -0,0 +1,285 @@
+package util;
+
+import estructura.Estacion;
+import estructura.GrafoCompacto;
+import estructura.GrafoTransporte;
+import estructura.ResultadoRuta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static util.Caminos.*;
+
+/*
+Clase: FrentePareto
+Objetivo: Busqueda multicriterio que encuentra en una sola pasada todas las rutas no
+          dominadas (frente de Pareto) entre dos estaciones según distancia, tiempo,
+          costo y transbordos. Una ruta domina a otra si no es peor en ningún criterio
+          y es mejor en al menos uno. Cada estación guarda su conjunto de etiquetas no
+          dominadas; las etiquetas viven en arreglos paralelos y apuntan a su etiqueta
+          anterior, así el camino de cada resultado se reconstruye exactamente.
+*/
+public class FrentePareto {
+
+    // Tope de etiquetas por busqueda para que un frente muy grande no agote la memoria.
+    public static final int LIMITE_ETIQUETAS = 2_000_000;
+
+    /*
+    Clase: Frente
+    Objetivo: Rutas no dominadas encontradas, ordenadas por tiempo, e indicación de si el frente
+              está completo. Si la busqueda llegó a LIMITE_ETIQUETAS antes de terminar, las rutas
+              son reales pero puede faltar alguna ruta no dominada, o alguna de ellas estar
+              dominada por una que no se llegó a encontrar.
+    */
+    public static final class Frente {
+        private final List<ResultadoRuta> rutas;
+        private final boolean completo;
+
+        private Frente(List<ResultadoRuta> rutas, boolean completo) {
+            this.rutas = rutas;
+            this.completo = completo;
+        }
+
+        public List<ResultadoRuta> getRutas() {
+            return rutas;
+        }
+
+        public boolean isCompleto() {
+            return completo;
+        }
+    }
+
+    // Busca el frente de Pareto entre dos estaciones del grafo.
+    public static Frente encontrarRutasPareto(GrafoTransporte grafo, Estacion origen, Estacion destino) {
+        return encontrarRutasPareto(grafo.compactar(), origen, destino);
+    }
+
+    /*
+     Misma busqueda sobre una instantánea ya construida. Retorna null si no hay ninguna ruta; si la
+     busqueda se cortó por el tope de etiquetas el frente viene marcado como incompleto (y puede
+     venir vacío aunque haya rutas).
+     */
+    public static Frente encontrarRutasPareto(GrafoCompacto grafo, Estacion origen, Estacion destino) {
+        int indiceOrigen = grafo.indiceDe(origen);
+        int indiceDestino = grafo.indiceDe(destino);
+        if (indiceOrigen < 0 || indiceDestino < 0 || indiceOrigen == indiceDestino) {
+            return null;
+        }
+
+        Busqueda busqueda = new Busqueda(grafo);
+        List<int[]> caminos = busqueda.ejecutar(indiceOrigen, indiceDestino);
+        if (caminos.isEmpty() && !busqueda.cortada) {
+            return null;
+        }
+        List<ResultadoRuta> resultados = new ArrayList<>(caminos.size());
+        for (int[] aristas : caminos) {
+            resultados.add(crearResultadoRuta(grafo, aristas));
+        }
+        return new Frente(resultados, !busqueda.cortada);
+    }
+
+    /*
+     Estado de una busqueda. Cada etiqueta es una posición en los arreglos paralelos con sus
+     cuatro valores acumulados, su estación, la ruta con la que llegó y la etiqueta anterior.
+     Las etiquetas se procesan en orden lexicográfico (tiempo, distancia, costo, transbordos):
+     con pesos no negativos una etiqueta extraída nunca es dominada por una posterior.
+     */
+    private static final class Busqueda {
+        private final GrafoCompacto grafo;
+
+        private int cantEtiquetas;
+        private double[] distancia;
+        private double[] tiempo;
+        private double[] costo;
+        private int[] transbordos;
+        private int[] estacion;
+        private int[] arista;
+        private int[] anterior;
+        // Las etiquetas dominadas después de creadas se marcan y se saltan al salir del montículo.
+        private boolean[] descartada;
+        // Verdadero si se llegó a LIMITE_ETIQUETAS con etiquetas todavía pendientes.
+        private boolean cortada;
+
+        // Etiquetas no dominadas de cada estación.
+        private final int[][] bolsas;
+        private final int[] cantBolsa;
+
+        // Montículo binario de etiquetas pendientes.
+        private int[] monticulo;
+        private int tamanyo;
+
+        private Busqueda(GrafoCompacto grafo) {
+            this.grafo = grafo;
+            int capacidad = 64;
+            distancia = new double[capacidad];
+            tiempo = new double[capacidad];
+            costo = new double[capacidad];
+            transbordos = new int[capacidad];
+            estacion = new int[capacidad];
+            arista = new int[capacidad];
+            anterior = new int[capacidad];
+            descartada = new boolean[capacidad];
+            bolsas = new int[grafo.getCantEstaciones()][];
+            cantBolsa = new int[grafo.getCantEstaciones()];
+            monticulo = new int[capacidad];
+        }
+
+        private List<int[]> ejecutar(int origen, int destino) {
+            double[] distancias = grafo.getDistancias();
+            double[] tiempos = grafo.getTiempos();
+            double[] costos = grafo.getCostos();
+            int[] desplazamientos = grafo.getDesplazamientos();
+            int[] destinos = grafo.getDestinos();
+
+            int inicial = nuevaEtiqueta(origen, -1, -1, 0.0, 0.0, 0.0, 0);
+            agregarABolsa(origen, inicial);
+            insertar(inicial);
+
+            while (tamanyo > 0 && cantEtiquetas < LIMITE_ETIQUETAS) {
+                int l = extraerMinimo();
+                if (descartada[l]) continue;
+                int u = estacion[l];
+                if (u == destino) continue;
+
+                for (int a = desplazamientos[u]; a < desplazamientos[u + 1]; a++) {
+                    int v = destinos[a];
+                    double d = distancia[l] + distancias[a];
+                    double t = tiempo[l] + tiempos[a];
+                    double c = costo[l] + costos[a];
+                    int tr = transbordos[l] + (grafo.getTipo(u) != grafo.getTipo(v) ? 1 : 0);
+
+                    // Se descarta si alguna etiqueta del destino o de v ya es igual o mejor en todo.
+                    if (dominadaPorBolsa(destino, d, t, c, tr) || dominadaPorBolsa(v, d, t, c, tr)) continue;
+                    quitarDominadas(v, d, t, c, tr);
+                    int nueva = nuevaEtiqueta(v, a, l, d, t, c, tr);
+                    agregarABolsa(v, nueva);
+                    insertar(nueva);
+                }
+            }
+            cortada = tamanyo > 0;
+
+            // Las etiquetas que quedan en el destino forman el frente, ordenadas por tiempo.
+            int[] frente = Arrays.copyOf(bolsas[destino] == null ? new int[0] : bolsas[destino], cantBolsa[destino]);
+            Integer[] orden = new Integer[frente.length];
+            for (int i = 0; i < frente.length; i++) orden[i] = frente[i];
+            Arrays.sort(orden, (x, y) -> comparar(x, y));
+
+            List<int[]> caminos = new ArrayList<>(orden.length);
+            for (int l : orden) {
+                caminos.add(caminoDe(l));
+            }
+            return caminos;
+        }
+
+        // Rutas del camino de la etiqueta, siguiendo los punteros a la etiqueta anterior.
+        private int[] caminoDe(int etiqueta) {
+            int cantidad = 0;
+            for (int l = etiqueta; anterior[l] >= 0; l = anterior[l]) cantidad++;
+            int[] aristas = new int[cantidad];
+            for (int l = etiqueta; anterior[l] >= 0; l = anterior[l]) {
+                aristas[--cantidad] = arista[l];
+            }
+            return aristas;
+        }
+
+        // Verifica si alguna etiqueta de la estación es igual o mejor en los cuatro criterios.
+        private boolean dominadaPorBolsa(int v, double d, double t, double c, int tr) {
+            int[] bolsa = bolsas[v];
+            for (int i = 0; i < cantBolsa[v]; i++) {
+                int l = bolsa[i];
+                if (distancia[l] <= d && tiempo[l] <= t && costo[l] <= c && transbordos[l] <= tr) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Quita de la bolsa las etiquetas que la nueva domina y las marca como descartadas.
+        private void quitarDominadas(int v, double d, double t, double c, int tr) {
+            int[] bolsa = bolsas[v];
+            for (int i = 0; i < cantBolsa[v]; ) {
+                int l = bolsa[i];
+                if (d <= distancia[l] && t <= tiempo[l] && c <= costo[l] && tr <= transbordos[l]) {
+                    descartada[l] = true;
+                    bolsa[i] = bolsa[--cantBolsa[v]];
+                } else {
+                    i++;
+                }
+            }
+        }
+
+        private void agregarABolsa(int v, int etiqueta) {
+            if (bolsas[v] == null) {
+                bolsas[v] = new int[4];
+            } else if (cantBolsa[v] == bolsas[v].length) {
+                bolsas[v] = Arrays.copyOf(bolsas[v], cantBolsa[v] * 2);
+            }
+            bolsas[v][cantBolsa[v]++] = etiqueta;
+        }
+
+        private int nuevaEtiqueta(int v, int a, int padre, double d, double t, double c, int tr) {
+            if (cantEtiquetas == estacion.length) {
+                int capacidad = estacion.length * 2;
+                distancia = Arrays.copyOf(distancia, capacidad);
+                tiempo = Arrays.copyOf(tiempo, capacidad);
+                costo = Arrays.copyOf(costo, capacidad);
+                transbordos = Arrays.copyOf(transbordos, capacidad);
+                estacion = Arrays.copyOf(estacion, capacidad);
+                arista = Arrays.copyOf(arista, capacidad);
+                anterior = Arrays.copyOf(anterior, capacidad);
+                descartada = Arrays.copyOf(descartada, capacidad);
+            }
+            int l = cantEtiquetas++;
+            distancia[l] = d;
+            tiempo[l] = t;
+            costo[l] = c;
+            transbordos[l] = tr;
+            estacion[l] = v;
+            arista[l] = a;
+            anterior[l] = padre;
+            return l;
+        }
+
+        // Orden lexicográfico por tiempo, distancia, costo y transbordos.
+        private int comparar(int x, int y) {
+            int r = Double.compare(tiempo[x], tiempo[y]);
+            if (r != 0) return r;
+            r = Double.compare(distancia[x], distancia[y]);
+            if (r != 0) return r;
+            r = Double.compare(costo[x], costo[y]);
+            if (r != 0) return r;
+            return Integer.compare(transbordos[x], transbordos[y]);
+        }
+
+        private void insertar(int etiqueta) {
+            if (tamanyo == monticulo.length) {
+                monticulo = Arrays.copyOf(monticulo, tamanyo * 2);
+            }
+            int i = tamanyo++;
+            while (i > 0) {
+                int padre = (i - 1) / 2;
+                if (comparar(monticulo[padre], etiqueta) <= 0) break;
+                monticulo[i] = monticulo[padre];
+                i = padre;
+            }
+            monticulo[i] = etiqueta;
+        }
+
+        private int extraerMinimo() {
+            int minimo = monticulo[0];
+            int ultimo = monticulo[--tamanyo];
+            int i = 0;
+            while (true) {
+                int hijo = 2 * i + 1;
+                if (hijo >= tamanyo) break;
+                if (hijo + 1 < tamanyo && comparar(monticulo[hijo + 1], monticulo[hijo]) < 0) hijo++;
+                if (comparar(ultimo, monticulo[hijo]) <= 0) break;
+                monticulo[i] = monticulo[hijo];
+                i = hijo;
+            }
+            if (tamanyo > 0) monticulo[i] = ultimo;
+            return minimo;
+        }
+    }
+}
@@ -1,8 +1,7 @@
 package util;
 
-import estructura.Estacion;
+import estructura.GrafoCompacto;
 import estructura.GrafoTransporte;
-import estructura.Ruta;
 
 import java.util.*;
 
@@ -10,94 +9,95 @@ public class Kruskal {
 
     // Clase auxiliar para detectar ciclos eficientemente, Disjoint Set Union.
     static class Union {
-        // Mapa de cada estacion a su padre.
-        private Map<UUID, UUID> padre;
+        // Padre de cada estacion, por su índice en el GrafoCompacto.
+        private final int[] padre;
 
-        private Map<UUID, Integer> rango;
+        private final int[] rango;
 
-        public Union(GrafoTransporte grafo) {
-            padre = new HashMap<>();
-            rango = new HashMap<>();
+        public Union(int cantEstaciones) {
+            padre = new int[cantEstaciones];
+            rango = new int[cantEstaciones];
             // Inicializar cada estación en su propio conjunto.
-            for(Estacion estacion : grafo.getWeb().keySet()) {
-                UUID id = estacion.getId();
-                padre.put(id, id); // Cada nodo es su propio padre al inicio.
-                rango.put(id, 0);
+            for(int i = 0; i < cantEstaciones; i++) {
+                padre[i] = i; // Cada nodo es su propio padre al inicio.
             }
         }
 
         // Metodo para encontrar la raíz del conjunto en el que se encuentra un estacion.
-        public UUID encontrar(UUID id) {
-            if(!padre.containsKey(id)) {
-                // Repetir la busqueda recursivamente hasta que se encuentre la raíz, en tal caso no entra al if.
-                padre.put(id, encontrar(padre.get(id)));
+        public int encontrar(int indice) {
+            if(padre[indice] != indice) {
+                // Repetir la busqueda recursivamente hasta que se encuentre la raíz, comprimiendo el camino.
+                padre[indice] = encontrar(padre[indice]);
             }
-            return padre.get(id);
+            return padre[indice];
         }
 
         // Metodo para unir dos subconjuntos o subárboles en un solo árbol.
-        public void unir(UUID id1, UUID id2) {
+        public void unir(int indice1, int indice2) {
             // Buscar la raiz de cada uno primero.
-            UUID raiz1 = encontrar(id1);
-            UUID raiz2 = encontrar(id2);
+            int raiz1 = encontrar(indice1);
+            int raiz2 = encontrar(indice2);
             // Si las raíces son iguales, significa que ya se encuentra en el mismo árbol/conjunto.
-            if(raiz1.equals(raiz2)) return;
+            if(raiz1 == raiz2) return;
 
-            // Conseguir el rango de ambas raíces.
-            int rango1 = rango.get(raiz1);
-            int rango2 = rango.get(raiz2);
-
-            if(rango1 < rango2) {
+            if(rango[raiz1] < rango[raiz2]) {
                 // Si el rango1 es menor se vuelve hijo de la raiz2 para mantener un árbol comprimido.
-                padre.put(raiz1, raiz2);
-            } else if(rango1 > rango2) {
-                padre.put(raiz2, raiz1);
+                padre[raiz1] = raiz2;
+            } else if(rango[raiz1] > rango[raiz2]) {
+                padre[raiz2] = raiz1;
             } else {
                 // Si los rangos son iguales se elite cualquiera y se incrementa el rango de la que se vuelve padre.
-                padre.put(raiz2, raiz1);
-                rango.put(raiz1, rango1 + 1);
+                padre[raiz2] = raiz1;
+                rango[raiz1]++;
             }
         }
 
         // Metodo para verificar si dos estaciones están en el mismo conjunto.
-        public boolean estanConectado(UUID id1, UUID id2) {
-            return encontrar(id1).equals(encontrar(id2));
+        public boolean estanConectado(int indice1, int indice2) {
+            return encontrar(indice1) == encontrar(indice2);
         }
     }
 
     public static GrafoTransporte kruskalBusqueda(GrafoTransporte grafo) {
         if (grafo == null || grafo.contarEstaciones() == 0) return null;
+        return kruskalBusqueda(grafo.compactar());
+    }
+
+    // Misma búsqueda sobre una instantánea compacta.
+    public static GrafoTransporte kruskalBusqueda(GrafoCompacto grafo) {
+        int totalEstaciones = grafo.getCantEstaciones();
+        if (totalEstaciones == 0) return null;
         GrafoTransporte arbolMin = new GrafoTransporte();
 
         // Añadir todas las estaciones/vertices al arbol de expansion minima.
-        for(Estacion estacion : grafo.getWeb().keySet()) {
-            arbolMin.agregarEstacion(estacion);
+        for(int i = 0; i < totalEstaciones; i++) {
+            arbolMin.agregarEstacion(grafo.getEstacion(i));
         }
 
         // Conseguir todas las rutas únicas y organizarlas por su ponderación.
-        List<Ruta> todasLasRutas = obtenerTodasLasRutasUnicas(grafo);
-        todasLasRutas.sort(Comparator.comparingDouble(Ruta::getPonderacion));
+        double[] ponderaciones = grafo.getPonderaciones();
+        List<Integer> todasLasRutas = obtenerTodasLasRutasUnicas(grafo);
+        todasLasRutas.sort(Comparator.comparingDouble(a -> ponderaciones[a]));
 
-        Union union = new Union(grafo);
+        Union union = new Union(totalEstaciones);
 
         int rutasAgregadas = 0;
-        int totalEstaciones = grafo.contarEstaciones();
 
-        for(Ruta ruta : todasLasRutas) {
+        for(int a : todasLasRutas) {
             // Repetir solo hasta que se tenga n-1 rutas con relación a estaciones.
             if(rutasAgregadas >= totalEstaciones - 1) break;
 
-            // Conseguir el id de la estación origen y destino.
-            UUID idOrigen = ruta.getOrigen().getId();
-            UUID idDestino = ruta.getDestino().getId();
+            // Conseguir el índice de la estación origen y destino.
+            int origen = grafo.getOrigen(a);
+            int destino = grafo.getDestino(a);
 
             // Verificar si no estan conectados, porque si lo estan significa que se va a crear un ciclo.
-            if(!union.estanConectado(idOrigen, idDestino)) {
+            if(!union.estanConectado(origen, destino)) {
                 // Agregar la ruta al arbol si no se crea un ciclo.
-                arbolMin.agregarRuta(ruta);
+                arbolMin.agregarRuta(grafo.getRuta(a));
 
                 // Unir los conjuntos de origen y destino.
-                union.unir(idOrigen, idDestino);
+                union.unir(origen, destino);
                 rutasAgregadas++; // Incrementar la cantidad de rutas agregadas.
             }
         }
@@ -105,21 +105,23 @@ public class Kruskal {
         return arbolMin;
     }
 
-    // Metodo para obtener todas las rutas únicas del grafo.
-    private static List<Ruta> obtenerTodasLasRutasUnicas(GrafoTransporte grafo) {
-        List<Ruta> rutasUnicas = new ArrayList<>();
-        Set<UUID> rutasProcesadas = new HashSet<>();
-        for(Map.Entry<Estacion, List<Ruta>> entrada : grafo.getWeb().entrySet()) {
-            for(Ruta ruta : entrada.getValue()) {
-                if(!rutasProcesadas.contains(ruta.getId())) {
-                    rutasUnicas.add(ruta);
-                    rutasProcesadas.add(ruta.getId());
-                    Ruta rutaInversa = grafo.getRutaEntreEstaciones(ruta.getDestino(), ruta.getOrigen());
-                    if(rutaInversa != null) {
-                        rutasProcesadas.add(rutaInversa.getId());
+    // Metodo para obtener la posición de todas las rutas únicas del grafo, sin contar la ruta inversa.
+    private static List<Integer> obtenerTodasLasRutasUnicas(GrafoCompacto grafo) {
+        List<Integer> rutasUnicas = new ArrayList<>();
+        boolean[] rutasProcesadas = new boolean[grafo.getCantRutas()];
+        for(int a = 0; a < grafo.getCantRutas(); a++) {
+            if(!rutasProcesadas[a]) {
+                rutasUnicas.add(a);
+                rutasProcesadas[a] = true;
+                // Buscar la ruta inversa entre las rutas salientes del destino.
+                int origen = grafo.getOrigen(a);
+                int destino = grafo.getDestino(a);
+                for(int b = grafo.inicio(destino); b < grafo.fin(destino); b++) {
+                    if(grafo.getDestino(b) == origen) {
+                        rutasProcesadas[b] = true;
+                        break;
                     }
                 }
-
             }
         }
         return rutasUnicas;
@@ -0,0 +1,138 @@
+package util;
+
+import java.util.Arrays;
+
+/*
+Clase: MonticuloIndexado
+Objetivo: Montículo d-ario de mínimos sobre índices de estaciones con claves double.
+          Guarda la posición de cada estación dentro del montículo para poder
+          disminuir su clave (decrease-key) sin insertar duplicados, y no crea
+          objetos al insertar o extraer.
+*/
+public class MonticuloIndexado {
+
+    // Cantidad de hijos por nodo, con 4 el montículo es más bajo y los hijos quedan contiguos en memoria.
+    private static final int ARIDAD = 4;
+
+    // Estaciones ordenadas según el montículo.
+    private int[] monticulo;
+    // Posición de cada estación en el montículo, -1 si no está.
+    private int[] posicion;
+    // Clave (valor acumulado) de cada estación.
+    private double[] claves;
+    private int tamanyo;
+
+    public MonticuloIndexado(int capacidad) {
+        monticulo = new int[capacidad];
+        posicion = new int[capacidad];
+        claves = new double[capacidad];
+        Arrays.fill(posicion, -1);
+        tamanyo = 0;
+    }
+
+    // Metodo para garantizar espacio para n estaciones, solo reserva memoria si crece.
+    public void asegurarCapacidad(int n) {
+        if (n <= posicion.length) return;
+        int anterior = posicion.length;
+        monticulo = Arrays.copyOf(monticulo, n);
+        posicion = Arrays.copyOf(posicion, n);
+        claves = Arrays.copyOf(claves, n);
+        Arrays.fill(posicion, anterior, n, -1);
+    }
+
+    // Vacía el montículo, solo limpia las posiciones de las estaciones que quedaron dentro.
+    public void limpiar() {
+        for (int i = 0; i < tamanyo; i++) {
+            posicion[monticulo[i]] = -1;
+        }
+        tamanyo = 0;
+    }
+
+    public boolean estaVacio() {
+        return tamanyo == 0;
+    }
+
+    public int getTamanyo() {
+        return tamanyo;
+    }
+
+    public boolean contiene(int estacion) {
+        return posicion[estacion] >= 0;
+    }
+
+    // Clave mínima actual, el montículo no debe estar vacío.
+    public double claveMinima() {
+        return claves[monticulo[0]];
+    }
+
+    // Inserta la estación o disminuye su clave si ya estaba y la nueva es menor.
+    public void insertarODisminuir(int estacion, double clave) {
+        int pos = posicion[estacion];
+        if (pos < 0) {
+            claves[estacion] = clave;
+            monticulo[tamanyo] = estacion;
+            posicion[estacion] = tamanyo;
+            subir(tamanyo++);
+        } else if (clave < claves[estacion]) {
+            claves[estacion] = clave;
+            subir(pos);
+        }
+    }
+
+    // Extrae la estación con la menor clave.
+    public int extraerMinimo() {
+        int minimo = monticulo[0];
+        posicion[minimo] = -1;
+        tamanyo--;
+        if (tamanyo > 0) {
+            int ultimo = monticulo[tamanyo];
+            monticulo[0] = ultimo;
+            posicion[ultimo] = 0;
+            bajar(0);
+        }
+        return minimo;
+    }
+
+    // Mueve la estación hacia la raíz mientras su clave sea menor que la del padre.
+    private void subir(int pos) {
+        int estacion = monticulo[pos];
+        double clave = claves[estacion];
+        while (pos > 0) {
+            int padre = (pos - 1) / ARIDAD;
+            int estacionPadre = monticulo[padre];
+            if (claves[estacionPadre] <= clave) break;
+            monticulo[pos] = estacionPadre;
+            posicion[estacionPadre] = pos;
+            pos = padre;
+        }
+        monticulo[pos] = estacion;
+        posicion[estacion] = pos;
+    }
+
+    // Mueve la estación hacia las hojas mientras algún hijo tenga una clave menor.
+    private void bajar(int pos) {
+        int estacion = monticulo[pos];
+        double clave = claves[estacion];
+        while (true) {
+            int primerHijo = pos * ARIDAD + 1;
+            if (primerHijo >= tamanyo) break;
+            int ultimoHijo = Math.min(primerHijo + ARIDAD, tamanyo);
+            int mejor = primerHijo;
+            double claveMejor = claves[monticulo[primerHijo]];
+            for (int h = primerHijo + 1; h < ultimoHijo; h++) {
+                double claveHijo = claves[monticulo[h]];
+                if (claveHijo < claveMejor) {
+                    mejor = h;
+                    claveMejor = claveHijo;
+                }
+            }
+            if (claveMejor >= clave) break;
+            int estacionHijo = monticulo[mejor];
+            monticulo[pos] = estacionHijo;
+            posicion[estacionHijo] = pos;
+            pos = mejor;
+        }
+        monticulo[pos] = estacion;
+        posicion[estacion] = pos;
+    }
+}
@@ -1,6 +1,7 @@
 package util;
 
 import estructura.Estacion;
+import estructura.GrafoCompacto;
 import estructura.GrafoTransporte;
 import estructura.Ruta;
 
@@ -16,9 +17,9 @@ public class Prim {
     // Clase auxiliar que extiende de DatoCamino para incluir la ruta actual también.
     static class DatoCaminoConRuta extends DatoCamino {
         public final Ruta ruta;
-        public DatoCaminoConRuta(Estacion actual, double ponderacion, Estacion predecesor,
-                                 int transbordos, UUID linea, String tipo, Ruta ruta) {
-            super(actual, ponderacion, predecesor, transbordos, linea, tipo);
+        public DatoCaminoConRuta(Estacion actual, int indice, double ponderacion, Estacion predecesor,
+                                 int indicePredecesor, int transbordos, UUID linea, String tipo, Ruta ruta) {
+            super(actual, indice, ponderacion, predecesor, indicePredecesor, transbordos, linea, tipo);
             this.ruta = ruta;
         }
     }
@@ -27,64 +28,77 @@ public class Prim {
     public static GrafoTransporte primBusqueda(GrafoTransporte grafo, Estacion origen) {
         // Chequear que nada sea null.
         if(origen == null || grafo == null) return null;
+        return primBusqueda(grafo.compactar(), origen);
+    }
+
+    // Misma búsqueda sobre una instantánea compacta, marcando los visitados por índice.
+    public static GrafoTransporte primBusqueda(GrafoCompacto grafo, Estacion origen) {
+        int indiceOrigen = grafo.indiceDe(origen);
+        if(indiceOrigen < 0) return null;
 
         // Crear un nuevo grafo que será el árbol de expansión minima.
         GrafoTransporte nuevoGrafo = new GrafoTransporte();
         // Agregar todas las estaciones del grafo al árbol.
-        for(Estacion estacion : grafo.getWeb().keySet()) {
-            nuevoGrafo.agregarEstacion(estacion);
+        int n = grafo.getCantEstaciones();
+        for(int i = 0; i < n; i++) {
+            nuevoGrafo.agregarEstacion(grafo.getEstacion(i));
         }
 
-        // Set para guardar las estaciones ya visitadas.
-        Set<UUID> visitados = new HashSet<>();
+        // Arreglo para marcar las estaciones ya visitadas.
+        boolean[] visitados = new boolean[n];
+        int cantVisitados = 0;
 
         // PriorityQueue para conseguir las rutas con menor ponderación.
         PriorityQueue<DatoCaminoConRuta> cola = new PriorityQueue<>();
         // Añadir la estación origen.
-        visitados.add(origen.getId());
+        visitados[indiceOrigen] = true;
+        cantVisitados++;
 
         // Agregar todas las rutas de la estacion origen a la cola.
-        List<Ruta> rutasOrigen = grafo.rutasDeEstacion(origen);
-        agregarRutasACola(rutasOrigen, cola, origen);
+        agregarRutasACola(grafo, indiceOrigen, cola);
 
         // Recorrer mientras no se hayan visitado todas las estaciones.
-        while(!cola.isEmpty() && visitados.size() < grafo.contarEstaciones()) {
+        while(!cola.isEmpty() && cantVisitados < n) {
             // Conseguir el mejor camino/ruta.
             DatoCaminoConRuta mejorCamino = cola.poll();
             // Volarse el ciclo si es null.
             if(mejorCamino == null) continue;
             // Conseguir la estacion destino del mejor camino.
-            Estacion destino = mejorCamino.estacionActual;
+            int destino = mejorCamino.indice;
 
             // Si la estacion destino ya se ha visitado, continuar.
-            if(visitados.contains(destino.getId())) {
+            if(visitados[destino]) {
                 // Si no se hiciera esto, se crearía un ciclo, haciendo que este algoritmo no cree un árbol.
                 continue;
             }
             // Si pasa la verificación la estacion destino se añade a los visitados.
-            visitados.add(destino.getId());
+            visitados[destino] = true;
+            cantVisitados++;
 
             // Finalmente, se agregan todas las rutas de la estacion destino a la cola para seguir encontrando la mejor ruta.
             nuevoGrafo.agregarRuta(mejorCamino.ruta);
-            List<Ruta> rutasDestino = grafo.rutasDeEstacion(destino);
-            agregarRutasACola(rutasDestino, cola, destino);
+            agregarRutasACola(grafo, destino, cola);
         }
         return nuevoGrafo;
     }
 
     // Metodo auxiliar para añadir todas las rutas de una estación a la cola.
-    private static void agregarRutasACola(List<Ruta> rutas, PriorityQueue<DatoCaminoConRuta> cola, Estacion estacion) {
-        if(rutas != null) {
-            for(Ruta ruta : rutas) {
-                cola.add(new DatoCaminoConRuta(
-                        ruta.getDestino(),
-                        ruta.getPonderacion(),
-                        estacion,
-                        0,
-                        ruta.getId(),
-                        estacion.getTipo().toString(),
-                        ruta));
-            }
+    private static void agregarRutasACola(GrafoCompacto grafo, int estacion, PriorityQueue<DatoCaminoConRuta> cola) {
+        Estacion actual = grafo.getEstacion(estacion);
+        double[] ponderaciones = grafo.getPonderaciones();
+        for(int a = grafo.inicio(estacion); a < grafo.fin(estacion); a++) {
+            Ruta ruta = grafo.getRuta(a);
+            int destino = grafo.getDestino(a);
+            cola.add(new DatoCaminoConRuta(
+                    grafo.getEstacion(destino),
+                    destino,
+                    ponderaciones[a],
+                    actual,
+                    estacion,
+                    0,
+                    ruta.getId(),
+                    actual.getTipo().toString(),
+                    ruta));
         }
     }
 
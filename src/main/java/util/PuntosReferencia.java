@@ -0,0 +1,308 @@
+package util;
+
+import estructura.Estacion;
+import estructura.GrafoCompacto;
+import estructura.GrafoTransporte;
+import estructura.ResultadoRuta;
+import util.Dijkstra.Criterio;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static util.Caminos.*;
+
+/*
+Clase: PuntosReferencia
+Objetivo: Subsistema de puntos de referencia (landmarks) para la búsqueda ALT
+          (A*, landmarks y desigualdad triangular). Se eligen algunas estaciones
+          alejadas entre sí y se precalcula, para cada criterio, el valor desde y
+          hacia cada una de ellas. Con eso cualquier búsqueda obtiene cotas inferiores
+          correctas para distancia, tiempo, costo o transbordos, no solo distancia.
+          Las tablas se guardan como float y se reconstruyen por partes cuando el
+          grafo cambia: se conservan las referencias existentes y solo se recalculan
+          los criterios cuyos pesos cambiaron.
+*/
+public final class PuntosReferencia {
+
+    public static final int CANT_PREDETERMINADA = 8;
+    private static final int CANT_CRITERIOS = Criterio.values().length;
+
+    /*
+     Tablas inmutables calculadas para una instantánea. Para la referencia l y la estación v:
+     desde[c][v * L + l] es el valor de la referencia a v y hacia[c][v * L + l] el de v a la
+     referencia, así las L referencias de una estación quedan contiguas en memoria.
+     */
+    public static final class Tablas {
+        private final GrafoCompacto grafo;
+        private final long version;
+        private final int[] referencias;
+        private final float[][] desde;
+        private final float[][] hacia;
+        private final long[] firmas;
+
+        private Tablas(GrafoCompacto grafo, long version, int[] referencias, float[][] desde, float[][] hacia, long[] firmas) {
+            this.grafo = grafo;
+            this.version = version;
+            this.referencias = referencias;
+            this.desde = desde;
+            this.hacia = hacia;
+            this.firmas = firmas;
+        }
+
+        public GrafoCompacto getGrafo() {
+            return grafo;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public int getCantReferencias() {
+            return referencias.length;
+        }
+
+        public Estacion getReferencia(int l) {
+            return grafo.getEstacion(referencias[l]);
+        }
+
+        /*
+         Cota inferior del valor del camino de v a t con la desigualdad triangular:
+         valor(v, t) >= valor(v, L) - valor(t, L) y valor(v, t) >= valor(L, t) - valor(L, v).
+         Se resta un ulp del término restado porque los float se guardan redondeados hacia abajo.
+         Retorna infinito si con alguna referencia se demuestra que t no es alcanzable desde v.
+         */
+        public double cotaInferior(Criterio criterio, int v, int t) {
+            float[] tablaDesde = desde[criterio.ordinal()];
+            float[] tablaHacia = hacia[criterio.ordinal()];
+            int cantidad = referencias.length;
+            int filaV = v * cantidad;
+            int filaT = t * cantidad;
+            double cota = 0.0;
+            for (int l = 0; l < cantidad; l++) {
+                float vHacia = tablaHacia[filaV + l];
+                float tHacia = tablaHacia[filaT + l];
+                if (tHacia != Float.POSITIVE_INFINITY) {
+                    if (vHacia == Float.POSITIVE_INFINITY) return Double.POSITIVE_INFINITY;
+                    cota = Math.max(cota, (double) vHacia - tHacia - Math.ulp(tHacia));
+                }
+                float vDesde = tablaDesde[filaV + l];
+                float tDesde = tablaDesde[filaT + l];
+                if (vDesde != Float.POSITIVE_INFINITY) {
+                    if (tDesde == Float.POSITIVE_INFINITY) return Double.POSITIVE_INFINITY;
+                    cota = Math.max(cota, (double) tDesde - vDesde - Math.ulp(vDesde));
+                }
+            }
+            return cota;
+        }
+    }
+
+    private final int cantidad;
+    private volatile Tablas tablas;
+
+    public PuntosReferencia(GrafoTransporte grafo) {
+        this(grafo, CANT_PREDETERMINADA);
+    }
+
+    public PuntosReferencia(GrafoTransporte grafo, int cantidad) {
+        this.cantidad = Math.max(1, cantidad);
+        actualizar(grafo);
+    }
+
+    // Metodo para sincronizar las tablas con el grafo, solo recalcula si cambió la versión.
+    public synchronized Tablas actualizar(GrafoTransporte grafo) {
+        Tablas actuales = tablas;
+        long version = grafo.getVersion();
+        if (actuales != null && actuales.version == version) {
+            return actuales;
+        }
+        tablas = reconstruir(actuales, grafo.compactar(), version);
+        return tablas;
+    }
+
+    public Tablas getTablas() {
+        return tablas;
+    }
+
+    // Busca la mejor ruta con ALT, actualizando antes las tablas si el grafo cambió.
+    public ResultadoRuta encontrarMejorRuta(GrafoTransporte grafo, Estacion origen, Estacion destino, Criterio criterio) {
+        Tablas vigentes = actualizar(grafo);
+        GrafoCompacto compacto = vigentes.grafo;
+        int indiceOrigen = compacto.indiceDe(origen);
+        int indiceDestino = compacto.indiceDe(destino);
+        if (indiceOrigen < 0 || indiceDestino < 0 || indiceOrigen == indiceDestino) {
+            return null;
+        }
+        int[] aristas = buscar(vigentes, indiceOrigen, indiceDestino, criterio, EspacioBusqueda.delHilo());
+        return aristas == null ? null : crearResultadoRuta(compacto, aristas);
+    }
+
+    /*
+     A* sobre índices usando como heurística la cota de los puntos de referencia.
+     Como los valores están redondeados a float, se permite volver a abrir una estación
+     asentada si se encuentra un valor estrictamente menor, así el resultado siempre es óptimo.
+     */
+    public static int[] buscar(Tablas tablas, int origen, int destino, Criterio criterio, EspacioBusqueda espacio) {
+        GrafoCompacto grafo = tablas.grafo;
+        double[] pesos = pesos(grafo, criterio);
+        espacio.preparar(grafo.getCantEstaciones());
+        MonticuloIndexado monticulo = espacio.getMonticulo();
+        int[] desplazamientos = grafo.getDesplazamientos();
+        int[] destinos = grafo.getDestinos();
+
+        double cotaOrigen = tablas.cotaInferior(criterio, origen, destino);
+        if (cotaOrigen == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        espacio.actualizar(origen, 0.0, -1, -1);
+        monticulo.insertarODisminuir(origen, cotaOrigen);
+
+        while (!monticulo.estaVacio()) {
+            int u = monticulo.extraerMinimo();
+            espacio.asentar(u);
+            if (u == destino) {
+                return Dijkstra.aristasDelArbol(espacio, destino);
+            }
+            double valorActual = espacio.getDistancia(u);
+
+            for (int a = desplazamientos[u]; a < desplazamientos[u + 1]; a++) {
+                int v = destinos[a];
+                double nuevoValor = valorActual + pesos[a];
+                if (nuevoValor < espacio.getDistancia(v)) {
+                    double cota = tablas.cotaInferior(criterio, v, destino);
+                    if (cota == Double.POSITIVE_INFINITY) continue;
+                    espacio.actualizar(v, nuevoValor, u, a);
+                    monticulo.insertarODisminuir(v, nuevoValor + cota);
+                }
+            }
+        }
+        return null;
+    }
+
+    // Calcula las tablas para la nueva instantánea reutilizando lo que se pueda de las anteriores.
+    private Tablas reconstruir(Tablas anteriores, GrafoCompacto grafo, long version) {
+        int n = grafo.getCantEstaciones();
+        int cantReferencias = Math.min(cantidad, n);
+
+        // Conservar las referencias que todavía existen, en el mismo orden.
+        int[] referencias = new int[cantReferencias];
+        int conservadas = 0;
+        if (anteriores != null) {
+            for (int r : anteriores.referencias) {
+                int indice = grafo.indiceDe(anteriores.grafo.getEstacion(r));
+                if (indice >= 0 && conservadas < cantReferencias) {
+                    referencias[conservadas++] = indice;
+                }
+            }
+        }
+        boolean mismasReferencias = anteriores != null && conservadas == anteriores.referencias.length
+                && conservadas == cantReferencias;
+        if (conservadas < cantReferencias) {
+            elegirReferencias(grafo, referencias, conservadas);
+        }
+
+        long[] firmas = new long[CANT_CRITERIOS];
+        float[][] desde = new float[CANT_CRITERIOS][];
+        float[][] hacia = new float[CANT_CRITERIOS][];
+        for (Criterio criterio : Criterio.values()) {
+            int c = criterio.ordinal();
+            firmas[c] = firmaPesos(grafo, pesos(grafo, criterio));
+            if (mismasReferencias && anteriores.firmas[c] == firmas[c]) {
+                // Los pesos de este criterio no cambiaron, solo se reacomodan las filas a los nuevos índices.
+                desde[c] = reordenar(anteriores.desde[c], anteriores.grafo, grafo, cantReferencias);
+                hacia[c] = reordenar(anteriores.hacia[c], anteriores.grafo, grafo, cantReferencias);
+            } else {
+                desde[c] = new float[n * cantReferencias];
+                hacia[c] = new float[n * cantReferencias];
+                calcularTablas(grafo, referencias, pesos(grafo, criterio), desde[c], hacia[c]);
+            }
+        }
+        return new Tablas(grafo, version, referencias, desde, hacia, firmas);
+    }
+
+    /*
+     Elige las referencias que faltan por el método del punto más lejano: cada nueva referencia
+     es la estación más alejada (por distancia) de las ya elegidas. Las estaciones que ninguna
+     referencia alcanza cuentan como las más lejanas, así se cubren también otras componentes.
+     */
+    private static void elegirReferencias(GrafoCompacto grafo, int[] referencias, int elegidas) {
+        int n = grafo.getCantEstaciones();
+        double[] pesos = grafo.getDistancias();
+        EspacioBusqueda espacio = EspacioBusqueda.delHilo();
+        double[] cercania = new double[n];
+        boolean[] esReferencia = new boolean[n];
+        Arrays.fill(cercania, Double.MAX_VALUE);
+
+        for (int l = 0; l < elegidas; l++) {
+            esReferencia[referencias[l]] = true;
+            acercar(grafo, referencias[l], pesos, espacio, cercania);
+        }
+        if (elegidas == 0) {
+            // Sin referencias previas se empieza desde la estación más lejana a una cualquiera.
+            acercar(grafo, 0, pesos, espacio, cercania);
+        }
+
+        while (elegidas < referencias.length) {
+            int lejana = -1;
+            for (int v = 0; v < n; v++) {
+                if (!esReferencia[v] && (lejana < 0 || cercania[v] > cercania[lejana])) {
+                    lejana = v;
+                }
+            }
+            if (elegidas == 0) {
+                Arrays.fill(cercania, Double.MAX_VALUE);
+            }
+            referencias[elegidas++] = lejana;
+            esReferencia[lejana] = true;
+            acercar(grafo, lejana, pesos, espacio, cercania);
+        }
+    }
+
+    // Actualiza la menor distancia de cada estación a alguna referencia con el árbol desde la estación dada.
+    private static void acercar(GrafoCompacto grafo, int desde, double[] pesos, EspacioBusqueda espacio, double[] cercania) {
+        Dijkstra.buscarMejorCamino(grafo, desde, -1, pesos, espacio);
+        for (int v = 0; v < cercania.length; v++) {
+            if (espacio.alcanzada(v)) {
+                cercania[v] = Math.min(cercania[v], espacio.getDistancia(v));
+            }
+        }
+    }
+
+    // Calcula en paralelo los árboles desde y hacia cada referencia.
+    private static void calcularTablas(GrafoCompacto grafo, int[] referencias, double[] pesos, float[] desde, float[] hacia) {
+        int n = grafo.getCantEstaciones();
+        int cantidad = referencias.length;
+        IntStream.range(0, cantidad).parallel().forEach(l -> {
+            EspacioBusqueda espacio = EspacioBusqueda.delHilo();
+            Dijkstra.buscarMejorCamino(grafo, referencias[l], -1, pesos, espacio);
+            for (int v = 0; v < n; v++) {
+                desde[v * cantidad + l] = aFloatHaciaAbajo(espacio.getDistancia(v));
+            }
+            Dijkstra.buscarArbolHaciaDestino(grafo, referencias[l], pesos, espacio);
+            for (int v = 0; v < n; v++) {
+                hacia[v * cantidad + l] = aFloatHaciaAbajo(espacio.getDistancia(v));
+            }
+        });
+    }
+
+    // Copia las filas de una tabla anterior a los índices de la nueva instantánea.
+    private static float[] reordenar(float[] tabla, GrafoCompacto anterior, GrafoCompacto nuevo, int cantidad) {
+        int n = nuevo.getCantEstaciones();
+        float[] resultado = new float[n * cantidad];
+        for (int v = 0; v < n; v++) {
+            int indiceAnterior = anterior.indiceDe(nuevo.getEstacion(v));
+            if (indiceAnterior >= 0) {
+                System.arraycopy(tabla, indiceAnterior * cantidad, resultado, v * cantidad, cantidad);
+            } else {
+                // Una estación nueva sin cambios en las rutas no tiene conexiones.
+                Arrays.fill(resultado, v * cantidad, (v + 1) * cantidad, Float.POSITIVE_INFINITY);
+            }
+        }
+        return resultado;
+    }
+
+    // Convierte a float redondeando hacia abajo para que las cotas sigan siendo inferiores.
+    private static float aFloatHaciaAbajo(double valor) {
+        float f = (float) valor;
+        return f > valor ? Math.nextDown(f) : f;
+    }
+}
@@ -0,0 +1,267 @@
+package util;
+
+import estructura.Estacion;
+import estructura.GrafoCompacto;
+import estructura.GrafoTransporte;
+import estructura.ResultadoRuta;
+import util.Dijkstra.Criterio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Clase: ServicioConsultasRuta
+Objetivo: Ejecutor de consultas de rutas en lote. Recibe miles de consultas
+          (origen, destino, criterio) y las resuelve en paralelo con un grupo acotado
+          de hilos, cada uno con su propio EspacioBusqueda reutilizable. Todas las
+          consultas usan una instantánea inmutable del grafo, así las ediciones que
+          se hagan desde las pantallas no interfieren con las busquedas en curso.
+          Lleva estadísticas de consultas completadas, cola, latencia y rendimiento.
+*/
+public final class ServicioConsultasRuta implements AutoCloseable {
+
+    // Consulta de la mejor ruta, o de las cantRutas mejores rutas, entre dos estaciones.
+    public static final class Consulta {
+        private final Estacion origen;
+        private final Estacion destino;
+        private final Criterio criterio;
+        private final int cantRutas;
+
+        public Consulta(Estacion origen, Estacion destino, Criterio criterio) {
+            this(origen, destino, criterio, 1);
+        }
+
+        public Consulta(Estacion origen, Estacion destino, Criterio criterio, int cantRutas) {
+            this.origen = origen;
+            this.destino = destino;
+            this.criterio = criterio;
+            this.cantRutas = Math.max(1, cantRutas);
+        }
+
+        public Estacion getOrigen() {
+            return origen;
+        }
+
+        public Estacion getDestino() {
+            return destino;
+        }
+
+        public Criterio getCriterio() {
+            return criterio;
+        }
+
+        public int getCantRutas() {
+            return cantRutas;
+        }
+    }
+
+    // Respuesta de una consulta con sus rutas (vacía si no hay camino) y el tiempo que tomó.
+    public static final class Respuesta {
+        private final Consulta consulta;
+        private final List<ResultadoRuta> rutas;
+        private final long latenciaNanos;
+        private final long version;
+
+        private Respuesta(Consulta consulta, List<ResultadoRuta> rutas, long latenciaNanos, long version) {
+            this.consulta = consulta;
+            this.rutas = rutas;
+            this.latenciaNanos = latenciaNanos;
+            this.version = version;
+        }
+
+        public Consulta getConsulta() {
+            return consulta;
+        }
+
+        public List<ResultadoRuta> getRutas() {
+            return rutas;
+        }
+
+        // Mejor ruta encontrada, o null si el destino no es alcanzable.
+        public ResultadoRuta getMejorRuta() {
+            return rutas.isEmpty() ? null : rutas.getFirst();
+        }
+
+        public double getLatenciaMs() {
+            return latenciaNanos / 1e6;
+        }
+
+        // Versión del grafo de la instantánea que respondió la consulta.
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    // Instantánea junto a la versión del grafo de la que se tomó.
+    private static final class Instantanea {
+        private final GrafoCompacto grafo;
+        private final long version;
+        // Pesos en punto fijo de cada criterio, se calculan la primera vez que se piden (pueden ser null).
+        private final BusquedaCubetas.PesosEnteros[] pesosEnteros = new BusquedaCubetas.PesosEnteros[Criterio.values().length];
+        private final boolean[] cuantizado = new boolean[Criterio.values().length];
+
+        private Instantanea(GrafoCompacto grafo, long version) {
+            this.grafo = grafo;
+            this.version = version;
+        }
+
+        private synchronized BusquedaCubetas.PesosEnteros getPesosEnteros(Criterio criterio) {
+            int c = criterio.ordinal();
+            if (!cuantizado[c]) {
+                pesosEnteros[c] = BusquedaCubetas.PesosEnteros.de(grafo, criterio);
+                cuantizado[c] = true;
+            }
+            return pesosEnteros[c];
+        }
+    }
+
+    private final ThreadPoolExecutor ejecutor;
+    private volatile Instantanea instantanea;
+
+    private final AtomicLong completadas = new AtomicLong();
+    private final LongAdder latenciaTotal = new LongAdder();
+    private final AtomicLong latenciaMaxima = new AtomicLong();
+    private volatile double rendimientoUltimoLote;
+    private volatile boolean puntoFijo;
+
+    public ServicioConsultasRuta(GrafoTransporte grafo) {
+        this(grafo, Runtime.getRuntime().availableProcessors());
+    }
+
+    /*
+     Los hilos son fijos y de plataforma: el espacio de busqueda de cada hilo se reutiliza en
+     todas sus consultas, mientras que un hilo virtual por consulta crearía uno nuevo cada vez.
+     Las consultas pendientes esperan en una cola sin límite y su tamaño es la profundidad de la cola.
+     */
+    public ServicioConsultasRuta(GrafoTransporte grafo, int hilos) {
+        int cantidad = Math.max(1, hilos);
+        this.ejecutor = new ThreadPoolExecutor(cantidad, cantidad, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), tarea -> {
+                    Thread hilo = new Thread(tarea, "consultas-ruta");
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+        actualizar(grafo);
+    }
+
+    /*
+     Toma una nueva instantánea si el grafo cambió desde la última. Debe llamarse desde el hilo
+     que modifica el grafo (el de la interfaz), las consultas ya enviadas terminan con la anterior.
+     */
+    public void actualizar(GrafoTransporte grafo) {
+        Instantanea actual = instantanea;
+        long version = grafo.getVersion();
+        if (actual == null || actual.version != version) {
+            instantanea = new Instantanea(grafo.compactar(), version);
+        }
+    }
+
+    // Envía una consulta y retorna un futuro con su respuesta.
+    public CompletableFuture<Respuesta> enviar(Consulta consulta) {
+        Instantanea vigente = instantanea;
+        return CompletableFuture.supplyAsync(() -> resolver(vigente, consulta), ejecutor);
+    }
+
+    // Resuelve todas las consultas en paralelo y retorna las respuestas en el mismo orden.
+    public List<Respuesta> ejecutar(List<Consulta> consultas) {
+        long inicio = System.nanoTime();
+        Instantanea vigente = instantanea;
+        List<CompletableFuture<Respuesta>> futuros = new ArrayList<>(consultas.size());
+        for (Consulta consulta : consultas) {
+            futuros.add(CompletableFuture.supplyAsync(() -> resolver(vigente, consulta), ejecutor));
+        }
+
+        List<Respuesta> respuestas = new ArrayList<>(consultas.size());
+        for (CompletableFuture<Respuesta> futuro : futuros) {
+            respuestas.add(futuro.join());
+        }
+        long duracion = System.nanoTime() - inicio;
+        rendimientoUltimoLote = duracion == 0 ? 0.0 : consultas.size() / (duracion / 1e9);
+        return respuestas;
+    }
+
+    // Resuelve una consulta sobre la instantánea con el espacio de busqueda del hilo actual.
+    private Respuesta resolver(Instantanea vigente, Consulta consulta) {
+        long inicio = System.nanoTime();
+        List<ResultadoRuta> rutas;
+        if (consulta.cantRutas == 1) {
+            ResultadoRuta mejor = buscarMejorRuta(vigente, consulta);
+            rutas = mejor == null ? List.of() : List.of(mejor);
+        } else {
+            List<ResultadoRuta> encontradas = Yen.encontrarKRutas(vigente.grafo, consulta.origen, consulta.destino,
+                    consulta.criterio, consulta.cantRutas);
+            rutas = encontradas == null ? List.of() : encontradas;
+        }
+        long latencia = System.nanoTime() - inicio;
+
+        completadas.incrementAndGet();
+        latenciaTotal.add(latencia);
+        latenciaMaxima.accumulateAndGet(latencia, Math::max);
+        return new Respuesta(consulta, rutas, latencia, vigente.version);
+    }
+
+    // Mejor ruta de la consulta, con los pesos en punto fijo si están activos y se pueden usar para el criterio.
+    private ResultadoRuta buscarMejorRuta(Instantanea vigente, Consulta consulta) {
+        if (puntoFijo && (consulta.criterio == Criterio.TIEMPO || consulta.criterio == Criterio.COSTO)) {
+            BusquedaCubetas.PesosEnteros pesos = vigente.getPesosEnteros(consulta.criterio);
+            if (pesos != null) {
+                return BusquedaCubetas.encontrarMejorRuta(vigente.grafo, consulta.origen, consulta.destino, pesos);
+            }
+        }
+        return Dijkstra.EncontrarMejorRuta(vigente.grafo, consulta.origen, consulta.destino, consulta.criterio);
+    }
+
+    /*
+     Opcional, desactivado por defecto. Con el punto fijo las consultas de una sola ruta por TIEMPO o COSTO
+     redondean los pesos a minutos y centavos y usan la cola por cubetas en vez del montículo. La ruta es la
+     mejor con los pesos redondeados (puede no ser la exacta si dos caminos difieren en menos de la escala)
+     y sus métricas se calculan con los valores reales. Si los pesos no caben en las cubetas se usa Dijkstra.
+     */
+    public void setPuntoFijo(boolean puntoFijo) {
+        this.puntoFijo = puntoFijo;
+    }
+
+    public boolean isPuntoFijo() {
+        return puntoFijo;
+    }
+
+    public long getCompletadas() {
+        return completadas.get();
+    }
+
+    // Consultas que esperan un hilo libre.
+    public int getEnCola() {
+        return ejecutor.getQueue().size();
+    }
+
+    // Consultas que se están resolviendo en este momento.
+    public int getEnEjecucion() {
+        return ejecutor.getActiveCount();
+    }
+
+    public double getLatenciaPromedioMs() {
+        long cantidad = completadas.get();
+        return cantidad == 0 ? 0.0 : latenciaTotal.sum() / 1e6 / cantidad;
+    }
+
+    public double getLatenciaMaximaMs() {
+        return latenciaMaxima.get() / 1e6;
+    }
+
+    // Consultas por segundo del último lote ejecutado con ejecutar.
+    public double getRendimiento() {
+        return rendimientoUltimoLote;
+    }
+
+    public long getVersion() {
+        return instantanea.version;
+    }
+
+    @Override
+    public void close() {
+        ejecutor.shutdown();
+    }
+}
@@ -0,0 +1,177 @@
+package util;
+
+import estructura.Estacion;
+import estructura.GrafoCompacto;
+import estructura.GrafoTransporte;
+import util.Dijkstra.Criterio;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static util.Caminos.*;
+
+/*
+Clase: TablaDistancias
+Objetivo: Tabla densa con el mejor valor desde un conjunto de estaciones origen hacia un
+          conjunto de estaciones destino para un criterio. Se hace un solo árbol de Dijkstra
+          por origen, que se detiene apenas asienta todos los destinos, y los orígenes se
+          reparten entre los núcleos. Los valores se guardan en un arreglo double por filas:
+          el valor del origen i al destino j está en la posición i * cantDestinos + j. En
+          TRANSBORDOS el valor guardado es la cantidad de transbordos, no el peso compuesto.
+*/
+public final class TablaDistancias {
+
+    private final Criterio criterio;
+    private final List<Estacion> origenes;
+    private final List<Estacion> destinos;
+    private final Map<UUID, Integer> filas;
+    private final Map<UUID, Integer> columnas;
+    private final double[] valores;
+
+    private TablaDistancias(Criterio criterio, List<Estacion> origenes, List<Estacion> destinos, double[] valores) {
+        this.criterio = criterio;
+        this.origenes = List.copyOf(origenes);
+        this.destinos = List.copyOf(destinos);
+        this.filas = indicesPorId(this.origenes);
+        this.columnas = indicesPorId(this.destinos);
+        this.valores = valores;
+    }
+
+    // Calcula la tabla para un criterio sobre el estado actual del grafo.
+    public static TablaDistancias calcular(GrafoTransporte grafo, List<Estacion> origenes, List<Estacion> destinos,
+                                           Criterio criterio) {
+        return calcular(grafo.compactar(), origenes, destinos, criterio);
+    }
+
+    // Calcula una tabla por cada criterio, todas sobre la misma instantánea.
+    public static Map<Criterio, TablaDistancias> calcularTodas(GrafoTransporte grafo, List<Estacion> origenes,
+                                                               List<Estacion> destinos) {
+        GrafoCompacto compacto = grafo.compactar();
+        Map<Criterio, TablaDistancias> tablas = new EnumMap<>(Criterio.class);
+        for (Criterio criterio : Criterio.values()) {
+            tablas.put(criterio, calcular(compacto, origenes, destinos, criterio));
+        }
+        return tablas;
+    }
+
+    /*
+     Calcula la tabla sobre una instantánea ya construida. Las estaciones que no pertenecen
+     a la instantánea y los destinos inalcanzables quedan con valor infinito.
+     */
+    public static TablaDistancias calcular(GrafoCompacto grafo, List<Estacion> origenes, List<Estacion> destinos,
+                                           Criterio criterio) {
+        int n = grafo.getCantEstaciones();
+        int cantOrigenes = origenes.size();
+        int cantDestinos = destinos.size();
+        double[] pesos = pesos(grafo, criterio);
+        double[] valores = new double[cantOrigenes * cantDestinos];
+        Arrays.fill(valores, Double.POSITIVE_INFINITY);
+
+        // Índice de cada destino en la instantánea y cuántos destinos distintos hay que asentar.
+        int[] indicesDestino = new int[cantDestinos];
+        boolean[] esDestino = new boolean[n];
+        int distintos = 0;
+        for (int j = 0; j < cantDestinos; j++) {
+            indicesDestino[j] = grafo.indiceDe(destinos.get(j));
+            if (indicesDestino[j] >= 0 && !esDestino[indicesDestino[j]]) {
+                esDestino[indicesDestino[j]] = true;
+                distintos++;
+            }
+        }
+        int cantidadObjetivo = distintos;
+
+        IntStream.range(0, cantOrigenes).parallel().forEach(i -> {
+            int origen = grafo.indiceDe(origenes.get(i));
+            if (origen < 0) return;
+            EspacioBusqueda espacio = EspacioBusqueda.delHilo();
+            buscarHastaDestinos(grafo, origen, pesos, esDestino, cantidadObjetivo, espacio);
+            int fila = i * cantDestinos;
+            for (int j = 0; j < cantDestinos; j++) {
+                if (indicesDestino[j] >= 0) {
+                    valores[fila + j] = valorDelCriterio(espacio.getDistancia(indicesDestino[j]), criterio, n);
+                }
+            }
+        });
+        return new TablaDistancias(criterio, origenes, destinos, valores);
+    }
+
+    // Dijkstra desde el origen que termina cuando ya asentó todos los destinos marcados.
+    private static void buscarHastaDestinos(GrafoCompacto grafo, int origen, double[] pesos, boolean[] esDestino,
+                                            int cantidadObjetivo, EspacioBusqueda espacio) {
+        espacio.preparar(grafo.getCantEstaciones());
+        MonticuloIndexado monticulo = espacio.getMonticulo();
+        int[] desplazamientos = grafo.getDesplazamientos();
+        int[] destinos = grafo.getDestinos();
+
+        espacio.actualizar(origen, 0.0, -1, -1);
+        monticulo.insertarODisminuir(origen, 0.0);
+        int faltantes = cantidadObjetivo;
+
+        while (!monticulo.estaVacio() && faltantes > 0) {
+            int u = monticulo.extraerMinimo();
+            espacio.asentar(u);
+            if (esDestino[u]) {
+                faltantes--;
+            }
+            double valorActual = espacio.getDistancia(u);
+
+            for (int a = desplazamientos[u]; a < desplazamientos[u + 1]; a++) {
+                int v = destinos[a];
+                if (espacio.estaAsentada(v)) continue;
+                double nuevoValor = valorActual + pesos[a];
+                if (nuevoValor < espacio.getDistancia(v)) {
+                    espacio.actualizar(v, nuevoValor, u, a);
+                    monticulo.insertarODisminuir(v, nuevoValor);
+                }
+            }
+        }
+    }
+
+    private static Map<UUID, Integer> indicesPorId(List<Estacion> estaciones) {
+        Map<UUID, Integer> indices = new HashMap<>(estaciones.size() * 2);
+        for (int i = 0; i < estaciones.size(); i++) {
+            indices.putIfAbsent(estaciones.get(i).getId(), i);
+        }
+        return indices;
+    }
+
+    public Criterio getCriterio() {
+        return criterio;
+    }
+
+    public int getCantOrigenes() {
+        return origenes.size();
+    }
+
+    public int getCantDestinos() {
+        return destinos.size();
+    }
+
+    public Estacion getOrigen(int fila) {
+        return origenes.get(fila);
+    }
+
+    public Estacion getDestino(int columna) {
+        return destinos.get(columna);
+    }
+
+    // Valor del origen en la fila dada al destino en la columna dada.
+    public double getValor(int fila, int columna) {
+        return valores[fila * destinos.size() + columna];
+    }
+
+    // Valor entre dos estaciones de la tabla, infinito si alguna no está en ella o no hay camino.
+    public double getValor(Estacion origen, Estacion destino) {
+        Integer fila = filas.get(origen.getId());
+        Integer columna = columnas.get(destino.getId());
+        if (fila == null || columna == null) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return getValor(fila, columna);
+    }
+
+    // Arreglo por filas compartido sin copiar por rendimiento, no debe modificarse.
+    public double[] getValores() {
+        return valores;
+    }
+}
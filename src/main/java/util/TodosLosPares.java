@@ -0,0 +1,500 @@
+package util;
+
+import estructura.Estacion;
+import estructura.GrafoCompacto;
+import estructura.GrafoTransporte;
+import estructura.MatrizDistMinimas;
+import estructura.ResultadoRuta;
+import estructura.Ruta;
+import util.Dijkstra.Criterio;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+
+import static util.Caminos.*;
+
+/*
+Clase: TodosLosPares
+Objetivo: Calcula la matriz de valores mínimos entre todos los pares de estaciones para
+          cualquier criterio. Las redes de transporte son muy dispersas (pocas rutas por
+          estación), y en ellas una busqueda desde cada estación, repartidas entre los
+          núcleos, cuesta mucho menos que el O(n³) de Floyd-Warshall. Elige sola entre
+          las dos formas según la densidad del grafo. Además de los valores guarda la
+          siguiente estación de cada camino, así cualquier ruta se reconstruye sin buscar.
+*/
+public class TodosLosPares {
+
+    /*
+     Se usa Floyd-Warshall cuando hay al menos una ruta por cada DIVISOR_DENSIDAD pares de
+     estaciones: desde ahí el recorrido por bloques, sin montículo, gana a las n busquedas.
+     */
+    public static final int DIVISOR_DENSIDAD = 10;
+
+    // Última matriz calculada sobre el GrafoTransporte, con su instantánea, versión y criterio.
+    private static final class Calculada {
+        private final GrafoCompacto grafo;
+        private final MatrizDistMinimas matriz;
+        private final long version;
+        private final Criterio criterio;
+
+        private Calculada(GrafoCompacto grafo, MatrizDistMinimas matriz, long version, Criterio criterio) {
+            this.grafo = grafo;
+            this.matriz = matriz;
+            this.version = version;
+            this.criterio = criterio;
+        }
+    }
+
+    /*
+     Con sus métricas la matriz ocupa cinco bloques de n² valores. Se guarda con una referencia suave
+     (SoftReference) para que el recolector la libere si falta memoria; en ese caso la busqueda de
+     rutas simplemente vuelve a buscar y la ventana de la matriz la vuelve a cargar o calcular.
+     */
+    private static volatile SoftReference<Calculada> ultima = new SoftReference<>(null);
+
+    // Carpeta donde se guardan las matrices calculadas para no recalcularlas al volver a abrir el programa.
+    public static final Path CARPETA_MATRICES = Path.of(System.getProperty("user.home"), ".gestion_transporte", "matrices");
+
+    /*
+     Calcula la matriz del criterio sobre el estado actual del grafo. La matriz queda guardada junto
+     a la versión del grafo para que la busqueda de rutas la use mientras el grafo no cambie.
+     */
+    public static MatrizDistMinimas calcular(GrafoTransporte grafo, Criterio criterio) {
+        long version = grafo.getVersion();
+        GrafoCompacto compacto = grafo.compactar();
+        MatrizDistMinimas matriz = calcular(compacto, criterio);
+        ultima = new SoftReference<>(new Calculada(compacto, matriz, version, criterio));
+        return matriz;
+    }
+
+    /*
+     Igual que calcular, pero primero intenta cargar la matriz guardada del criterio. La firma del
+     contenido del grafo (estaciones, rutas y sus pesos) va en el nombre del archivo y en su
+     encabezado, si coincide la matriz se abre mapeada en memoria sin copiarla; si no, se calcula y
+     se guarda para la próxima vez. Cada firma tiene su propio archivo, así nunca se reemplaza uno
+     que puede estar mapeado (en Windows eso falla), y después de guardar se borran los anteriores.
+     Si la última matriz ya está al día (por ejemplo puesta al día por actualizarRuta) se usa esa,
+     guardándola con la firma nueva si todavía no hay archivo.
+     */
+    public static MatrizDistMinimas calcularOCargar(GrafoTransporte grafo, Criterio criterio) {
+        Calculada vigente = vigente(grafo.getVersion(), criterio);
+        GrafoCompacto compacto = vigente != null ? vigente.grafo : grafo.compactar();
+        return calcularOCargar(compacto, grafo.getVersion(), criterio);
+    }
+
+    /*
+     Igual que el anterior sobre una instantánea ya tomada en la versión dada del grafo. No toca el
+     GrafoTransporte, así que se puede llamar desde un hilo de fondo.
+     */
+    public static MatrizDistMinimas calcularOCargar(GrafoCompacto compacto, long version, Criterio criterio) {
+        Calculada vigente = vigente(version, criterio);
+        if (vigente != null) {
+            long firma = firma(vigente.grafo, criterio);
+            Path archivo = archivoMatriz(criterio, firma);
+            if (!Files.exists(archivo) && vigente.matriz.guardar(archivo, firma)) {
+                borrarMatricesAnteriores(criterio, archivo);
+            }
+            return vigente.matriz;
+        }
+
+        long firma = firma(compacto, criterio);
+        Path archivo = archivoMatriz(criterio, firma);
+
+        MatrizDistMinimas matriz = MatrizDistMinimas.cargar(archivo, firma, compacto);
+        if (matriz == null) {
+            matriz = calcular(compacto, criterio);
+            if (matriz.guardar(archivo, firma)) {
+                borrarMatricesAnteriores(criterio, archivo);
+            }
+        }
+        ultima = new SoftReference<>(new Calculada(compacto, matriz, version, criterio));
+        return matriz;
+    }
+
+    // Archivo de la matriz del criterio para una firma: matriz-<criterio>-<firma en hexadecimal>.bin
+    public static Path archivoMatriz(Criterio criterio, long firma) {
+        return CARPETA_MATRICES.resolve("matriz-" + criterio.name().toLowerCase() + "-" + Long.toHexString(firma) + ".bin");
+    }
+
+    /*
+     Borra los archivos de otras firmas del criterio (y el de nombre sin firma de versiones anteriores).
+     Si alguno sigue mapeado y el sistema no deja borrarlo, queda para la próxima vez que se guarde.
+     */
+    private static void borrarMatricesAnteriores(Criterio criterio, Path actual) {
+        String nombre = "matriz-" + criterio.name().toLowerCase();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(CARPETA_MATRICES, nombre + "*.bin")) {
+            for (Path archivo : archivos) {
+                String nombreArchivo = archivo.getFileName().toString();
+                if (archivo.equals(actual) || !(nombreArchivo.equals(nombre + ".bin") || nombreArchivo.startsWith(nombre + "-"))) {
+                    continue;
+                }
+                try {
+                    Files.deleteIfExists(archivo);
+                } catch (IOException e) {
+                    System.out.println("No se pudo borrar la matriz anterior: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("No se pudieron revisar las matrices guardadas: " + e.getMessage());
+        }
+    }
+
+    // Firma del contenido del grafo para una matriz del criterio: estaciones, rutas, pesos del criterio y métricas.
+    public static long firma(GrafoCompacto grafo, Criterio criterio) {
+        long firma = criterio.ordinal();
+        firma = firma * 31 + firmaEstaciones(grafo);
+        firma = firma * 31 + firmaPesos(grafo, pesos(grafo, criterio));
+        firma = firma * 31 + firmaPesos(grafo, grafo.getDistancias());
+        firma = firma * 31 + firmaPesos(grafo, grafo.getTiempos());
+        firma = firma * 31 + firmaPesos(grafo, grafo.getCostos());
+        return firma;
+    }
+
+    // Misma matriz sobre una instantánea ya construida, eligiendo el algoritmo por la densidad.
+    public static MatrizDistMinimas calcular(GrafoCompacto grafo, Criterio criterio) {
+        if (convieneFloydWarshall(grafo, criterio)) {
+            return FloydWarshall.calcularDistanciasMinimas(grafo, criterio);
+        }
+        return calcularConBusquedas(grafo, criterio);
+    }
+
+    /*
+     Indica si Floyd-Warshall conviene más que una busqueda por estación. También se usa con
+     pesos negativos, que Dijkstra no admite (no hace falta repesar como en Johnson porque los
+     pesos de las rutas nunca son negativos salvo datos corruptos).
+     */
+    public static boolean convieneFloydWarshall(GrafoCompacto grafo, Criterio criterio) {
+        long n = grafo.getCantEstaciones();
+        if (grafo.getCantRutas() * (long) DIVISOR_DENSIDAD >= n * n) {
+            return true;
+        }
+        return hayPesosNegativos(pesos(grafo, criterio));
+    }
+
+    private static boolean hayPesosNegativos(double[] pesos) {
+        for (double peso : pesos) {
+            if (peso < 0) return true;
+        }
+        return false;
+    }
+
+    /*
+     Una busqueda completa por estación, repartidas entre los hilos del ForkJoinPool. Cada hilo usa
+     su propio EspacioBusqueda, así que la distancia y los transbordos usan la cola por cubetas,
+     igual que en una consulta normal. Cada busqueda va hacia atrás desde un destino
+     y llena su columna: el padre de cada estación en ese árbol es la siguiente estación hacia el
+     destino. Tomar todas las siguientes de una columna del mismo árbol evita ciclos al reconstruir
+     caminos cuando hay rutas de peso 0 (árboles de orígenes distintos pueden desempatar distinto).
+     */
+    public static MatrizDistMinimas calcularConBusquedas(GrafoCompacto grafo, Criterio criterio) {
+        int n = grafo.getCantEstaciones();
+        double[] pesos = pesos(grafo, criterio);
+        MatrizDistMinimas.Builder matriz = new MatrizDistMinimas.Builder(n).conSiguientes();
+        for (int i = 0; i < n; i++) {
+            matriz.agregarEstacion(grafo.getEstacion(i));
+        }
+        float[] valores = matriz.getDistancias();
+        int[] siguientes = matriz.getSiguientes();
+
+        IntStream.range(0, n).parallel().forEach(destino -> {
+            EspacioBusqueda espacio = EspacioBusqueda.delHilo();
+            Dijkstra.buscarArbolHaciaDestino(grafo, destino, pesos, espacio);
+            for (int origen = 0; origen < n; origen++) {
+                if (origen != destino && espacio.alcanzada(origen)) {
+                    valores[origen * n + destino] = (float) espacio.getDistancia(origen);
+                    siguientes[origen * n + destino] = espacio.getPadre(origen);
+                }
+            }
+        });
+        llenarMetricas(grafo, criterio, matriz);
+        return matriz.construir();
+    }
+
+    // Pila de trabajo de cada hilo para llenar las métricas.
+    private static final ThreadLocal<int[]> PILA_POR_HILO = ThreadLocal.withInitial(() -> new int[16]);
+
+    /*
+     Llena la distancia recorrida, el tiempo y el costo de cada camino de la matriz a partir de las
+     siguientes estaciones, en la misma pasada que arma la matriz: las métricas de i a j son las de
+     la ruta de i a la siguiente estación más las de la siguiente estación a j. Cada columna se llena
+     en O(n) subiendo hasta una celda ya resuelta, y las columnas se reparten entre los hilos.
+     */
+    static void llenarMetricas(GrafoCompacto grafo, Criterio criterio, MatrizDistMinimas.Builder matriz) {
+        int n = matriz.getTamanyo();
+        int[] siguientes = matriz.getSiguientes();
+        float[] distancias = matriz.conMetricas().getDistanciasRecorridas();
+        float[] tiempos = matriz.getTiempos();
+        float[] costos = matriz.getCostos();
+        double[] pesos = pesos(grafo, criterio);
+
+        IntStream.range(0, n).parallel().forEach(destino -> {
+            int[] pila = PILA_POR_HILO.get();
+            if (pila.length < n) {
+                pila = new int[n];
+                PILA_POR_HILO.set(pila);
+            }
+            for (int origen = 0; origen < n; origen++) {
+                if (siguientes[origen * n + destino] < 0) continue;
+                // Subir por las siguientes estaciones hasta una con sus métricas ya calculadas
+                int cantidad = 0;
+                int v = origen;
+                while (distancias[v * n + destino] == Float.POSITIVE_INFINITY && cantidad < n) {
+                    pila[cantidad++] = v;
+                    v = siguientes[v * n + destino];
+                }
+                // Bajar sumando la ruta de cada estación a la siguiente
+                while (cantidad > 0) {
+                    int u = pila[--cantidad];
+                    int siguiente = siguientes[u * n + destino];
+                    int arista = rutaMasLiviana(grafo, pesos, u, siguiente);
+                    distancias[u * n + destino] = (float) (grafo.getDistancias()[arista] + distancias[siguiente * n + destino]);
+                    tiempos[u * n + destino] = (float) (grafo.getTiempos()[arista] + tiempos[siguiente * n + destino]);
+                    costos[u * n + destino] = (float) (grafo.getCostos()[arista] + costos[siguiente * n + destino]);
+                }
+            }
+        });
+    }
+
+    /*
+     Mantiene al día la última matriz calculada cuando cambian las rutas entre dos estaciones (se
+     agregó, modificó o eliminó la ruta dada), sin recalcularla entera. Se compara la ruta más
+     liviana entre esas estaciones antes y después del cambio:
+     - si ahora pesa menos (ruta nueva o peso menor) basta una pasada O(n²) con relajarRuta, y después
+       se llenan de nuevo las métricas de los destinos que mejoraron;
+     - si pesa más o ya no hay ruta, solo se recalculan los destinos cuyos caminos la usaban;
+     - si pesa lo mismo pero cambió su distancia, tiempo o costo, se recalculan esos mismos destinos.
+     Si el grafo cambió en algo más desde la última matriz (más de una versión, otras estaciones o
+     pesos negativos) se descarta, y la próxima vez que se pida se calcula o se carga de nuevo; así
+     editar una ruta nunca espera un cálculo completo. Retorna la matriz al día, o null si no hay.
+     */
+    public static MatrizDistMinimas actualizarRuta(GrafoTransporte grafo, Ruta ruta) {
+        Calculada calculada = ultima.get();
+        long version = grafo.getVersion();
+        if (calculada == null || calculada.version == version) {
+            return calculada == null ? null : calculada.matriz;
+        }
+        Criterio criterio = calculada.criterio;
+        MatrizDistMinimas matriz = calculada.matriz;
+        GrafoCompacto anterior = calculada.grafo;
+        GrafoCompacto compacto = grafo.compactar();
+        double[] pesos = pesos(compacto, criterio);
+        int[] enGrafo = indicesEnGrafo(compacto, matriz);
+        int u = compacto.indiceDe(ruta.getOrigen());
+        int v = compacto.indiceDe(ruta.getDestino());
+        if (calculada.version + 1 != version || enGrafo == null || !matriz.tieneCaminos() || u < 0 || v < 0
+                || anterior.indiceDe(ruta.getOrigen()) < 0 || anterior.indiceDe(ruta.getDestino()) < 0
+                || hayPesosNegativos(pesos)) {
+            ultima = new SoftReference<>(null);
+            return null;
+        }
+
+        double[] pesosAnteriores = pesos(anterior, criterio);
+        int antes = rutaMasLiviana(anterior, pesosAnteriores, anterior.indiceDe(ruta.getOrigen()),
+                anterior.indiceDe(ruta.getDestino()));
+        int despues = rutaMasLiviana(compacto, pesos, u, v);
+        double pesoAntes = antes < 0 ? Double.POSITIVE_INFINITY : pesosAnteriores[antes];
+        double pesoDespues = despues < 0 ? Double.POSITIVE_INFINITY : pesos[despues];
+        int origen = matriz.indiceDe(ruta.getOrigen());
+        int destino = matriz.indiceDe(ruta.getDestino());
+
+        if (pesoDespues < pesoAntes) {
+            boolean[] cambiados = matriz.relajarRuta(origen, destino, (float) pesoDespues);
+            if (matriz.tieneMetricas()) {
+                llenarMetricasDestinos(compacto, pesos, matriz, enGrafo, cambiados);
+            }
+        } else if (pesoDespues > pesoAntes || (antes >= 0
+                && (anterior.getDistancias()[antes] != compacto.getDistancias()[despues]
+                || anterior.getTiempos()[antes] != compacto.getTiempos()[despues]
+                || anterior.getCostos()[antes] != compacto.getCostos()[despues]))) {
+            recalcularDestinos(compacto, pesos, matriz, enGrafo, matriz.destinosQueUsanRuta(origen, destino));
+        }
+        ultima = new SoftReference<>(new Calculada(compacto, matriz, version, criterio));
+        return matriz;
+    }
+
+    // Índice en la instantánea de cada estación de la matriz, o null si no tienen las mismas estaciones.
+    private static int[] indicesEnGrafo(GrafoCompacto grafo, MatrizDistMinimas matriz) {
+        int n = matriz.getTamanyo();
+        if (grafo.getCantEstaciones() != n) {
+            return null;
+        }
+        int[] enGrafo = new int[n];
+        for (int k = 0; k < n; k++) {
+            enGrafo[k] = grafo.indiceDe(matriz.getEstacion(k));
+            if (enGrafo[k] < 0) return null;
+        }
+        return enGrafo;
+    }
+
+    /*
+     Vuelve a calcular las columnas de los destinos marcados con una busqueda hacia atrás por destino,
+     igual que calcularConBusquedas, y sus métricas. Cada columna sale entera de un mismo árbol, así
+     sus siguientes estaciones no forman ciclos con las columnas que no cambian.
+     */
+    private static void recalcularDestinos(GrafoCompacto grafo, double[] pesos, MatrizDistMinimas matriz,
+                                           int[] enGrafo, boolean[] destinos) {
+        int n = matriz.getTamanyo();
+        int[] enMatriz = new int[n];
+        for (int k = 0; k < n; k++) {
+            enMatriz[enGrafo[k]] = k;
+        }
+        matriz.hacerEditable();
+
+        IntStream.range(0, n).filter(j -> destinos[j]).parallel().forEach(destino -> {
+            EspacioBusqueda espacio = EspacioBusqueda.delHilo();
+            Dijkstra.buscarArbolHaciaDestino(grafo, enGrafo[destino], pesos, espacio);
+            for (int origen = 0; origen < n; origen++) {
+                if (origen == destino) continue;
+                int o = enGrafo[origen];
+                if (espacio.alcanzada(o)) {
+                    matriz.setCamino(origen, destino, (float) espacio.getDistancia(o), enMatriz[espacio.getPadre(o)]);
+                } else {
+                    matriz.setCamino(origen, destino, Float.POSITIVE_INFINITY, -1);
+                }
+            }
+            if (matriz.tieneMetricas()) {
+                llenarMetricasDestino(grafo, pesos, matriz, enGrafo, destino);
+            }
+        });
+    }
+
+    // Vuelve a llenar las métricas de los destinos marcados, repartidos entre los hilos.
+    private static void llenarMetricasDestinos(GrafoCompacto grafo, double[] pesos, MatrizDistMinimas matriz,
+                                               int[] enGrafo, boolean[] destinos) {
+        IntStream.range(0, matriz.getTamanyo()).filter(j -> destinos[j]).parallel()
+                .forEach(destino -> llenarMetricasDestino(grafo, pesos, matriz, enGrafo, destino));
+    }
+
+    // Igual que llenarMetricas pero para una sola columna de una matriz ya construida.
+    private static void llenarMetricasDestino(GrafoCompacto grafo, double[] pesos, MatrizDistMinimas matriz,
+                                              int[] enGrafo, int destino) {
+        int n = matriz.getTamanyo();
+        int[] pila = PILA_POR_HILO.get();
+        if (pila.length < n) {
+            pila = new int[n];
+            PILA_POR_HILO.set(pila);
+        }
+        for (int origen = 0; origen < n; origen++) {
+            if (origen != destino) {
+                matriz.setMetricas(origen, destino, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
+            }
+        }
+        for (int origen = 0; origen < n; origen++) {
+            if (matriz.getSiguiente(origen, destino) < 0) continue;
+            int cantidad = 0;
+            int v = origen;
+            while (matriz.getDistanciaRecorrida(v, destino) == Float.POSITIVE_INFINITY && cantidad < n) {
+                pila[cantidad++] = v;
+                v = matriz.getSiguiente(v, destino);
+            }
+            while (cantidad > 0) {
+                int u = pila[--cantidad];
+                int siguiente = matriz.getSiguiente(u, destino);
+                int arista = rutaMasLiviana(grafo, pesos, enGrafo[u], enGrafo[siguiente]);
+                matriz.setMetricas(u, destino,
+                        (float) (grafo.getDistancias()[arista] + matriz.getDistanciaRecorrida(siguiente, destino)),
+                        (float) (grafo.getTiempos()[arista] + matriz.getTiempo(siguiente, destino)),
+                        (float) (grafo.getCostos()[arista] + matriz.getCosto(siguiente, destino)));
+            }
+        }
+    }
+
+    // Ruta de menor peso entre dos estaciones vecinas, o -1 si no hay ruta directa.
+    private static int rutaMasLiviana(GrafoCompacto grafo, double[] pesos, int origen, int destino) {
+        int mejor = -1;
+        for (int a = grafo.inicio(origen); a < grafo.fin(origen); a++) {
+            if (grafo.getDestino(a) == destino && (mejor < 0 || pesos[a] < pesos[mejor])) {
+                mejor = a;
+            }
+        }
+        return mejor;
+    }
+
+    /*
+     Arma la mejor ruta entre dos estaciones con el camino guardado en la matriz. Entre cada par de
+     estaciones consecutivas se toma la ruta de menor peso, la misma que usó el cálculo de la matriz.
+     La matriz puede venir de otra instantánea del mismo grafo (por ejemplo cargada de archivo),
+     sus índices se traducen por estación. Retorna null si no hay camino.
+     */
+    public static ResultadoRuta rutaDesdeMatriz(GrafoCompacto grafo, MatrizDistMinimas matriz, Criterio criterio,
+                                                Estacion origen, Estacion destino) {
+        int indiceOrigen = matriz.indiceDe(origen);
+        int indiceDestino = matriz.indiceDe(destino);
+        if (indiceOrigen < 0 || indiceDestino < 0 || indiceOrigen == indiceDestino) {
+            return null;
+        }
+        int[] camino = matriz.getCamino(indiceOrigen, indiceDestino);
+        if (camino == null) {
+            return null;
+        }
+
+        for (int p = 0; p < camino.length; p++) {
+            camino[p] = grafo.indiceDe(matriz.getEstacion(camino[p]));
+            if (camino[p] < 0) {
+                return null;
+            }
+        }
+
+        double[] pesos = pesos(grafo, criterio);
+        int[] aristas = new int[camino.length - 1];
+        for (int p = 0; p < aristas.length; p++) {
+            aristas[p] = rutaMasLiviana(grafo, pesos, camino[p], camino[p + 1]);
+            if (aristas[p] < 0) {
+                return null;
+            }
+        }
+        return crearResultadoRuta(grafo, aristas);
+    }
+
+    // Indica si hay una matriz del criterio calculada sobre la versión actual del grafo.
+    public static boolean hayMatrizVigente(GrafoTransporte grafo, Criterio criterio) {
+        return vigente(grafo.getVersion(), criterio) != null;
+    }
+
+    // Última matriz si es del criterio, de la versión dada del grafo y guarda los caminos, o null.
+    private static Calculada vigente(long version, Criterio criterio) {
+        Calculada calculada = ultima.get();
+        if (calculada != null && calculada.criterio == criterio && calculada.version == version
+                && calculada.matriz.tieneCaminos()) {
+            return calculada;
+        }
+        return null;
+    }
+
+    /*
+     Mejor ruta desde la última matriz calculada con calcular, sin hacer ninguna busqueda.
+     Solo debe usarse si hayMatrizVigente es verdadero; retorna null si no hay camino.
+     */
+    public static ResultadoRuta rutaPrecalculada(GrafoTransporte grafo, Estacion origen, Estacion destino,
+                                                 Criterio criterio) {
+        Calculada calculada = ultima.get();
+        if (calculada == null || calculada.criterio != criterio || calculada.version != grafo.getVersion()) {
+            return null;
+        }
+        return rutaDesdeMatriz(calculada.grafo, calculada.matriz, criterio, origen, destino);
+    }
+
+    /*
+     Valor del criterio entre dos estaciones en la última matriz calculada: infinito si no hay camino,
+     o NaN si no hay una matriz vigente del criterio o no tiene alguna de las estaciones. En
+     TRANSBORDOS es la cantidad de transbordos.
+     */
+    public static float valorPrecalculado(GrafoTransporte grafo, Estacion origen, Estacion destino,
+                                          Criterio criterio) {
+        Calculada calculada = ultima.get();
+        if (calculada == null || calculada.criterio != criterio || calculada.version != grafo.getVersion()) {
+            return Float.NaN;
+        }
+        int indiceOrigen = calculada.matriz.indiceDe(origen);
+        int indiceDestino = calculada.matriz.indiceDe(destino);
+        if (indiceOrigen < 0 || indiceDestino < 0) {
+            return Float.NaN;
+        }
+        float valor = calculada.matriz.getDistancia(indiceOrigen, indiceDestino);
+        return (float) valorDelCriterio(valor, criterio, calculada.matriz.getTamanyo());
+    }
+}
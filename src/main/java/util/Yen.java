@@ -0,0 +1,262 @@
+package util;
+
+import estructura.Estacion;
+import estructura.GrafoCompacto;
+import estructura.GrafoTransporte;
+import estructura.ResultadoRuta;
+import util.Dijkstra.Criterio;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+
+import static util.Caminos.*;
+
+/*
+Clase: Yen
+Objetivo: Implementación del algoritmo de Yen para encontrar los k caminos simples
+          (sin ciclos) más cortos entre dos estaciones, para cualquier criterio.
+          El árbol de caminos más cortos hacia el destino se calcula una sola vez y se
+          reutiliza en cada desvío: si el camino del árbol desde la estación de desvío no
+          pasa por ninguna estación o ruta bloqueada se usa directamente, y si no, sus
+          valores sirven como potencial exacto para una búsqueda A* muy acotada.
+*/
+public class Yen {
+
+    // Camino candidato con sus rutas en orden y la posición del desvío que lo generó.
+    static class Candidato implements Comparable<Candidato> {
+        final int[] aristas;
+        final double valor;
+        final int transbordos;
+        final int desvio;
+
+        Candidato(int[] aristas, double valor, int transbordos, int desvio) {
+            this.aristas = aristas;
+            this.valor = valor;
+            this.transbordos = transbordos;
+            this.desvio = desvio;
+        }
+
+        // Prioriza el menor valor, luego menos transbordos y luego menos rutas.
+        @Override
+        public int compareTo(Candidato otro) {
+            if (this.valor != otro.valor) {
+                return Double.compare(this.valor, otro.valor);
+            }
+            if (this.transbordos != otro.transbordos) {
+                return Integer.compare(this.transbordos, otro.transbordos);
+            }
+            return Integer.compare(this.aristas.length, otro.aristas.length);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == null || getClass() != o.getClass()) return false;
+            return Arrays.equals(aristas, ((Candidato) o).aristas);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(aristas);
+        }
+    }
+
+    // Encuentra hasta k rutas simples distintas del origen al destino, ordenadas de mejor a peor.
+    public static List<ResultadoRuta> encontrarKRutas(GrafoTransporte grafo, Estacion origen, Estacion destino,
+                                                      Criterio criterio, int k) {
+        return encontrarKRutas(grafo.compactar(), origen, destino, criterio, k);
+    }
+
+    // Misma búsqueda sobre una instantánea compacta ya construida.
+    public static List<ResultadoRuta> encontrarKRutas(GrafoCompacto grafo, Estacion origen, Estacion destino,
+                                                      Criterio criterio, int k) {
+        int indiceOrigen = grafo.indiceDe(origen);
+        int indiceDestino = grafo.indiceDe(destino);
+        if (indiceOrigen < 0 || indiceDestino < 0 || indiceOrigen == indiceDestino || k <= 0) {
+            return null;
+        }
+
+        List<int[]> caminos = encontrarKCaminos(grafo, indiceOrigen, indiceDestino, pesos(grafo, criterio), k);
+        if (caminos.isEmpty()) {
+            return null;
+        }
+
+        List<ResultadoRuta> resultados = new ArrayList<>(caminos.size());
+        for (int[] aristas : caminos) {
+            resultados.add(crearResultadoRuta(grafo, aristas));
+        }
+        return resultados;
+    }
+
+    // Núcleo del algoritmo sobre índices, retorna cada camino como la secuencia de rutas que lo forman.
+    // Lanza CancellationException si el hilo se interrumpe durante la busqueda.
+    public static List<int[]> encontrarKCaminos(GrafoCompacto grafo, int origen, int destino, double[] pesos, int k) {
+        int n = grafo.getCantEstaciones();
+        int m = grafo.getCantRutas();
+        EspacioBusqueda espacio = EspacioBusqueda.delHilo();
+
+        // Árbol de caminos más cortos hacia el destino, se copia porque el espacio se reutiliza en los desvíos.
+        Dijkstra.buscarArbolHaciaDestino(grafo, destino, pesos, espacio);
+        if (!espacio.alcanzada(origen)) {
+            return new ArrayList<>();
+        }
+        double[] hastaDestino = new double[n];
+        int[] siguienteArista = new int[n];
+        for (int v = 0; v < n; v++) {
+            hastaDestino[v] = espacio.getDistancia(v);
+            siguienteArista[v] = espacio.alcanzada(v) ? espacio.getAristaPadre(v) : -1;
+        }
+
+        List<Candidato> encontrados = new ArrayList<>();
+        PriorityQueue<Candidato> candidatos = new PriorityQueue<>();
+        Set<Candidato> vistos = new HashSet<>();
+
+        Candidato primero = crearCandidato(grafo, pesos, caminoDelArbol(grafo, origen, destino, siguienteArista), 0);
+        encontrados.add(primero);
+        vistos.add(primero);
+
+        while (encontrados.size() < k) {
+            Candidato anterior = encontrados.getLast();
+            int[] nodos = estacionesDelCamino(grafo, origen, anterior.aristas);
+
+            // Los desvíos antes de la posición donde se generó el camino anterior ya se probaron (mejora de Lawler).
+            for (int i = anterior.desvio; i < anterior.aristas.length; i++) {
+                // Si la busqueda se canceló (el hilo fue interrumpido) no tiene sentido seguir desviando.
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Busqueda de rutas cancelada");
+                }
+                int estacionDesvio = nodos[i];
+
+                // La raíz del camino no se puede volver a visitar para mantener el camino simple.
+                espacio.limpiarBloqueos(n, m);
+                for (int j = 0; j < i; j++) {
+                    espacio.bloquearNodo(nodos[j]);
+                }
+                // Las rutas que ya tomaron los caminos encontrados con la misma raíz quedan bloqueadas.
+                for (Candidato encontrado : encontrados) {
+                    if (mismaRaiz(encontrado.aristas, anterior.aristas, i)) {
+                        espacio.bloquearArista(encontrado.aristas[i]);
+                    }
+                }
+
+                int[] desvio = buscarDesvio(grafo, estacionDesvio, destino, pesos, hastaDestino, siguienteArista, espacio);
+                if (desvio == null) continue;
+
+                int[] total = Arrays.copyOf(anterior.aristas, i + desvio.length);
+                System.arraycopy(desvio, 0, total, i, desvio.length);
+                Candidato nuevo = crearCandidato(grafo, pesos, total, i);
+                if (vistos.add(nuevo)) {
+                    candidatos.add(nuevo);
+                }
+            }
+
+            if (candidatos.isEmpty()) break;
+            encontrados.add(candidatos.poll());
+        }
+
+        List<int[]> caminos = new ArrayList<>(encontrados.size());
+        for (Candidato candidato : encontrados) {
+            caminos.add(candidato.aristas);
+        }
+        return caminos;
+    }
+
+    /*
+     Busca el mejor camino desde la estación de desvío al destino respetando los bloqueos del espacio.
+     Primero intenta seguir el árbol hacia el destino, que es óptimo si no toca nada bloqueado.
+     Si no, hace A* usando los valores del árbol como potencial (nunca sobreestiman, porque bloquear
+     estaciones o rutas solo puede alargar los caminos). Retorna null si no hay camino.
+     */
+    private static int[] buscarDesvio(GrafoCompacto grafo, int inicio, int destino, double[] pesos,
+                                      double[] hastaDestino, int[] siguienteArista, EspacioBusqueda espacio) {
+        if (siguienteArista[inicio] < 0) {
+            return null;
+        }
+        if (arbolLibre(grafo, inicio, destino, siguienteArista, espacio)) {
+            return caminoDelArbol(grafo, inicio, destino, siguienteArista);
+        }
+
+        espacio.preparar(grafo.getCantEstaciones());
+        MonticuloIndexado monticulo = espacio.getMonticulo();
+        int[] desplazamientos = grafo.getDesplazamientos();
+        int[] destinos = grafo.getDestinos();
+
+        espacio.actualizar(inicio, 0.0, -1, -1);
+        monticulo.insertarODisminuir(inicio, hastaDestino[inicio]);
+
+        while (!monticulo.estaVacio()) {
+            int u = monticulo.extraerMinimo();
+            espacio.asentar(u);
+            if (u == destino) {
+                return Dijkstra.aristasDelArbol(espacio, destino);
+            }
+            double valorActual = espacio.getDistancia(u);
+
+            for (int a = desplazamientos[u]; a < desplazamientos[u + 1]; a++) {
+                int v = destinos[a];
+                // Las estaciones sin camino al destino en el grafo completo tampoco lo tienen con bloqueos.
+                if (espacio.estaAsentada(v) || espacio.aristaBloqueada(a) || espacio.nodoBloqueado(v)
+                        || hastaDestino[v] == Double.POSITIVE_INFINITY) continue;
+                double nuevoValor = valorActual + pesos[a];
+                if (nuevoValor < espacio.getDistancia(v)) {
+                    espacio.actualizar(v, nuevoValor, u, a);
+                    monticulo.insertarODisminuir(v, nuevoValor + hastaDestino[v]);
+                }
+            }
+        }
+        return null;
+    }
+
+    // Verifica si el camino del árbol desde la estación hasta el destino no pasa por nada bloqueado.
+    private static boolean arbolLibre(GrafoCompacto grafo, int inicio, int destino, int[] siguienteArista,
+                                      EspacioBusqueda espacio) {
+        for (int v = inicio; v != destino; ) {
+            int a = siguienteArista[v];
+            v = grafo.getDestino(a);
+            if (espacio.aristaBloqueada(a) || espacio.nodoBloqueado(v)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Sigue el árbol hacia el destino desde la estación y retorna las rutas del camino.
+    private static int[] caminoDelArbol(GrafoCompacto grafo, int inicio, int destino, int[] siguienteArista) {
+        int cantidad = 0;
+        for (int v = inicio; v != destino; v = grafo.getDestino(siguienteArista[v])) {
+            cantidad++;
+        }
+        int[] aristas = new int[cantidad];
+        int i = 0;
+        for (int v = inicio; v != destino; v = grafo.getDestino(siguienteArista[v])) {
+            aristas[i++] = siguienteArista[v];
+        }
+        return aristas;
+    }
+
+    // Estaciones del camino en orden, empezando por el origen.
+    private static int[] estacionesDelCamino(GrafoCompacto grafo, int origen, int[] aristas) {
+        int[] nodos = new int[aristas.length + 1];
+        nodos[0] = origen;
+        for (int i = 0; i < aristas.length; i++) {
+            nodos[i + 1] = grafo.getDestino(aristas[i]);
+        }
+        return nodos;
+    }
+
+    // Verifica si ambos caminos comparten las primeras cantidad rutas y el primero continúa después.
+    private static boolean mismaRaiz(int[] camino, int[] raiz, int cantidad) {
+        if (camino.length <= cantidad) return false;
+        for (int i = 0; i < cantidad; i++) {
+            if (camino[i] != raiz[i]) return false;
+        }
+        return true;
+    }
+
+    private static Candidato crearCandidato(GrafoCompacto grafo, double[] pesos, int[] aristas, int desvio) {
+        double valor = 0;
+        for (int a : aristas) {
+            valor += pesos[a];
+        }
+        return new Candidato(aristas, valor, contarTransbordos(grafo, aristas), desvio);
+    }
+}
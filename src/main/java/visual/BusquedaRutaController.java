@@ -1,10 +1,12 @@
 package visual;
 
 import estructura.Estacion;
+import estructura.GrafoCompacto;
 import estructura.GrafoTransporte;
 import estructura.ResultadoRuta;
 import estructura.Servicio;
 import estructura.Ruta;
+import javafx.animation.PauseTransition;
 import javafx.beans.value.ChangeListener;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -12,13 +14,20 @@ import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
+import javafx.concurrent.Task;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.layout.AnchorPane;
+import javafx.util.Duration;
+import util.CacheRutas;
 import util.Dijkstra;
 import util.Dijkstra.Criterio;
+import util.TodosLosPares;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /*
 Clase: BusquedaRutaController
@@ -49,6 +58,9 @@ public class BusquedaRutaController {
     // NUEVO: Boton para busqueda por transbordos
     @FXML
     private Button btnBusquedaTransbordos;
+    // Indicador de que hay una busqueda en curso
+    @FXML
+    private ProgressIndicator indicadorBusqueda;
 
 
     // Controlador del mapa
@@ -63,6 +75,23 @@ public class BusquedaRutaController {
     // Color para resaltar rutas
     private static final String COLOR_RUTA = "#0000FF";
 
+    // Tiempo que se espera sin cambios en Origen/Destino antes de buscar
+    private static final Duration ESPERA_SELECCION = Duration.millis(250);
+
+    // Hilos de fondo para las busquedas, no impiden que la aplicación se cierre
+    private static final ExecutorService EJECUTOR_BUSQUEDAS = Executors.newCachedThreadPool(tarea -> {
+        Thread hilo = new Thread(tarea, "busqueda-rutas");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    // Busqueda en curso y espera de la selección
+    private final PauseTransition esperaSeleccion = new PauseTransition(ESPERA_SELECCION);
+    private Task<Map<Criterio, List<ResultadoRuta>>> busquedaActual;
+    private Estacion origenEnCurso;
+    private Estacion destinoEnCurso;
+    private long versionEnCurso;
+
     // Metodo de inicialización fxml.
     @FXML
     public void initialize() {
@@ -116,10 +145,11 @@ public class BusquedaRutaController {
         cmbOrigen.setItems(estacionesObservable);
         cmbDestino.setItems(estacionesObservable);
 
-        // Listener para la busqueda automática al cambiar Origen/Destino
+        // Listener para la busqueda automática al cambiar Origen/Destino, espera a que la selección se calme
+        esperaSeleccion.setOnFinished(e -> realizarBusqueda(criterioActual));
         ChangeListener<Estacion> busquedaListener = (obs, oldVal, newVal) -> {
-            if (cmbOrigen.getValue() != null && cmbDestino.getValue() != null && criterioActual != null) {
-                realizarBusqueda(criterioActual);
+            if (cmbOrigen.getValue() != null && cmbDestino.getValue() != null) {
+                esperaSeleccion.playFromStart();
             }
         };
 
@@ -136,13 +166,19 @@ public class BusquedaRutaController {
         btnBusquedaTransbordos.setOnAction(e -> realizarBusqueda(Criterio.TRANSBORDOS));
     }
 
-    // Ejecuta la busqueda de rutas Top 3.
+    /*
+     Ejecuta la busqueda de rutas Top 3. La primera vez que se busca un par de estaciones se
+     calculan en segundo plano los cuatro criterios a la vez y se guardan en el cache, así
+     cambiar de criterio después solo es una consulta. Con criterio null solo se precalcula.
+     */
     private void realizarBusqueda(Criterio criterio) {
         Estacion origen = cmbOrigen.getValue();
         Estacion destino = cmbDestino.getValue();
+        esperaSeleccion.stop();
 
         // Validaciones basicas
         if (origen == null || destino == null || origen.equals(destino)) {
+            cancelarBusqueda();
             if (origen == null || destino == null) {
                 lblRutaDetalles.setText("Debe seleccionar una estacion de Origen y Destino.");
             } else {
@@ -153,25 +189,113 @@ public class BusquedaRutaController {
             return;
         }
 
-        try {
+        if (criterio != null) {
             criterioActual = criterio;
-            // Ejecutar el algoritmo de Dijkstra para el Top 3
-            top3Rutas = Dijkstra.EncontrarTop3Rutas(grafo, origen, destino, criterio);
-
-            if (top3Rutas == null || top3Rutas.isEmpty()) {
-                lblRutaDetalles.setText("No se encontro ninguna ruta entre " + origen.getNombre() + " y " + destino.getNombre() + " con el criterio " + criterio.name() + ".");
-                cmbTopRutas.setDisable(true);
-                cmbTopRutas.setItems(FXCollections.emptyObservableList());
-                mapaController.dibujarMapaCompleto();
+        }
+        // Si ya se están calculando los criterios de este par, el resultado se mostrará al terminar
+        long version = grafo.getVersion();
+        if (busquedaActual != null && origen.equals(origenEnCurso) && destino.equals(destinoEnCurso)
+                && version == versionEnCurso) {
+            return;
+        }
+        cancelarBusqueda();
+
+        // Si el Top 3 ya se calculó para esta versión del grafo se muestra sin buscar
+        CacheRutas cache = CacheRutas.getInstance();
+        if (criterioActual != null) {
+            List<ResultadoRuta> guardadas = cache.obtener(grafo, origen, destino, criterioActual);
+            if (guardadas != null) {
+                mostrarResultados(origen, destino, criterioActual, guardadas);
+                return;
+            }
+        }
+
+        // Si la matriz de todos los pares está al día para este criterio, la mejor ruta sale de ella sin buscar
+        // mientras el Top 3 se calcula en segundo plano. Si la matriz dice que no hay camino, no lo hay con
+        // ningún criterio; si no se pudo armar la ruta por otro motivo se busca normalmente.
+        boolean mostradaDesdeMatriz = false;
+        if (criterioActual != null && TodosLosPares.hayMatrizVigente(grafo, criterioActual)) {
+            ResultadoRuta mejor = TodosLosPares.rutaPrecalculada(grafo, origen, destino, criterioActual);
+            if (mejor != null) {
+                mostrarResultados(origen, destino, criterioActual, List.of(mejor));
+                mostradaDesdeMatriz = true;
+            } else if (TodosLosPares.valorPrecalculado(grafo, origen, destino, criterioActual) == Float.POSITIVE_INFINITY) {
+                for (Criterio criterioSinRuta : Criterio.values()) {
+                    cache.guardar(version, origen, destino, criterioSinRuta, List.of());
+                }
+                mostrarResultados(origen, destino, criterioActual, List.of());
+                return;
+            }
+        }
+
+        // La instantánea se toma en el hilo de la interfaz, así la busqueda no choca con ediciones del grafo
+        GrafoCompacto compacto = grafo.compactar();
+        Task<Map<Criterio, List<ResultadoRuta>>> tarea = new Task<>() {
+            @Override
+            protected Map<Criterio, List<ResultadoRuta>> call() throws Exception {
+                return Dijkstra.EncontrarTop3RutasPorCriterio(compacto, origen, destino, EJECUTOR_BUSQUEDAS);
+            }
+        };
+
+        // Solo se aplica el resultado si esta sigue siendo la busqueda más reciente
+        tarea.setOnSucceeded(e -> {
+            if (tarea != busquedaActual) return;
+            terminarBusqueda();
+            for (Map.Entry<Criterio, List<ResultadoRuta>> entrada : tarea.getValue().entrySet()) {
+                cache.guardar(version, origen, destino, entrada.getKey(), entrada.getValue());
+            }
+            if (criterioActual != null) {
+                mostrarResultados(origen, destino, criterioActual, tarea.getValue().get(criterioActual));
             } else {
-                actualizarResultadosBusqueda(criterio);
+                lblRutaDetalles.setText("Rutas calculadas, seleccione un criterio de búsqueda.");
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-            lblRutaDetalles.setText("Error en la busqueda de rutas: " + e.getMessage());
+        });
+        tarea.setOnFailed(e -> {
+            if (tarea != busquedaActual) return;
+            terminarBusqueda();
+            Throwable error = tarea.getException();
+            error.printStackTrace();
+            lblRutaDetalles.setText("Error en la busqueda de rutas: " + error.getMessage());
+            top3Rutas = List.of();
             cmbTopRutas.setDisable(true);
             cmbTopRutas.setItems(FXCollections.emptyObservableList());
             mapaController.dibujarMapaCompleto();
+        });
+
+        busquedaActual = tarea;
+        origenEnCurso = origen;
+        destinoEnCurso = destino;
+        versionEnCurso = version;
+        indicadorBusqueda.setVisible(true);
+        if (!mostradaDesdeMatriz) {
+            lblRutaDetalles.setText("Buscando rutas entre " + origen.getNombre() + " y " + destino.getNombre() + "...");
+        }
+        EJECUTOR_BUSQUEDAS.execute(tarea);
+    }
+
+    // Cancela la busqueda en curso, su resultado ya no se va a mostrar.
+    private void cancelarBusqueda() {
+        if (busquedaActual != null) {
+            busquedaActual.cancel();
+            terminarBusqueda();
+        }
+    }
+
+    private void terminarBusqueda() {
+        busquedaActual = null;
+        indicadorBusqueda.setVisible(false);
+    }
+
+    // Muestra el resultado de una busqueda o el mensaje de que no hay rutas.
+    private void mostrarResultados(Estacion origen, Estacion destino, Criterio criterio, List<ResultadoRuta> resultados) {
+        top3Rutas = resultados == null ? List.of() : resultados;
+        if (top3Rutas.isEmpty()) {
+            lblRutaDetalles.setText("No se encontro ninguna ruta entre " + origen.getNombre() + " y " + destino.getNombre() + " con el criterio " + criterio.name() + ".");
+            cmbTopRutas.setDisable(true);
+            cmbTopRutas.setItems(FXCollections.emptyObservableList());
+            mapaController.dibujarMapaCompleto();
+        } else {
+            actualizarResultadosBusqueda(criterio);
         }
     }
 
@@ -246,22 +370,10 @@ public class BusquedaRutaController {
         // Limpia el mapa de resaltados
         mapaController.dibujarMapaCompleto();
 
-        // Resalta cada ruta individual que compone el camino
-        List<Estacion> camino = resultado.getCamino();
-
-        // Recorre la lista de estaciones para obtener las rutas entre ellas
-        for (int i = 0; i < camino.size() - 1; i++) {
-            Estacion origen = camino.get(i);
-            Estacion destino = camino.get(i + 1);
-
-            // Busca la ruta especifica en el grafo
-            for (Ruta ruta : grafo.getWeb().get(origen)) {
-                if (ruta.getDestino().equals(destino)) {
-                    // Resalta la ruta con color azul brillante
-                    mapaController.resaltarRuta(ruta, COLOR_RUTA);
-                    break;
-                }
-            }
+        // Resalta cada ruta individual que compone el camino, son las rutas exactas que usó la busqueda
+        for (Ruta ruta : resultado.getRutas()) {
+            // Resalta la ruta con color azul brillante
+            mapaController.resaltarRuta(ruta, COLOR_RUTA);
         }
     }
 
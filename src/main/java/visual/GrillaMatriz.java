@@ -0,0 +1,333 @@
+package visual;
+
+import javafx.geometry.Orientation;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+
+import java.util.function.IntFunction;
+
+/*
+Clase: GrillaMatriz
+Objetivo: Grilla virtual para mostrar una matriz n x n de cualquier tamaño. No crea columnas,
+          filas ni textos por celda: lee los valores directamente de la matriz y dibuja en un
+          Canvas solo las celdas que se ven, formateándolas en ese momento. La memoria usada
+          depende del tamaño de la ventana y no de la cantidad de estaciones. La fila de
+          nombres de destino y la columna de nombres de origen quedan siempre a la vista, y
+          se puede fijar además la fila y la columna de la celda seleccionada.
+*/
+public final class GrillaMatriz extends Region {
+
+    // Valor de la celda de la fila i y la columna j, se pide solo para las celdas visibles.
+    public interface Valores {
+        float valor(int i, int j);
+    }
+
+    private static final double ALTO_FILA = 24;
+    private static final double ANCHO_COLUMNA = 80;
+    private static final double ANCHO_NOMBRES = 120;
+    // Filas o columnas que se mueven por cada paso de la rueda del mouse
+    private static final int PASO_RUEDA = 3;
+
+    private static final Color COLOR_ENCABEZADO = Color.web("#42b6c3");
+    private static final Color COLOR_NOMBRES = Color.web("#e8f6f8");
+    private static final Color COLOR_SELECCION = Color.web("#ffe08a");
+    private static final Color COLOR_CRUZ = Color.web("#f4fafb");
+    private static final Color COLOR_LINEAS = Color.web("#d0d0d0");
+    private static final Font FUENTE = Font.font("System", 12);
+    private static final Font FUENTE_NEGRITA = Font.font("System", FontWeight.BOLD, 12);
+
+    private final Canvas canvas = new Canvas();
+    private final ScrollBar barraVertical = new ScrollBar();
+    private final ScrollBar barraHorizontal = new ScrollBar();
+
+    private int cantidad;
+    private Valores valores;
+    private IntFunction<String> nombres;
+    private String mensaje = "";
+
+    private int filaSeleccionada = -1;
+    private int columnaSeleccionada = -1;
+    // Fila y columna fijadas debajo de los encabezados, -1 si no hay
+    private int filaFija = -1;
+    private int columnaFija = -1;
+
+    public GrillaMatriz() {
+        barraVertical.setOrientation(Orientation.VERTICAL);
+        barraHorizontal.setOrientation(Orientation.HORIZONTAL);
+        barraVertical.valueProperty().addListener((obs, anterior, nuevo) -> dibujar());
+        barraHorizontal.valueProperty().addListener((obs, anterior, nuevo) -> dibujar());
+        getChildren().addAll(canvas, barraVertical, barraHorizontal);
+
+        setFocusTraversable(true);
+        canvas.setOnMousePressed(this::clicEnCelda);
+        canvas.setOnScroll(this::moverConRueda);
+        setOnKeyPressed(this::moverConTeclado);
+    }
+
+    // Cambia los datos de la grilla. Solo se guardan las funciones, no se lee ninguna celda todavía.
+    public void setDatos(int cantidad, Valores valores, IntFunction<String> nombres) {
+        this.cantidad = cantidad;
+        this.valores = valores;
+        this.nombres = nombres;
+        if (filaSeleccionada >= cantidad || columnaSeleccionada >= cantidad) {
+            filaSeleccionada = -1;
+            columnaSeleccionada = -1;
+        }
+        if (filaFija >= cantidad || columnaFija >= cantidad) {
+            filaFija = -1;
+            columnaFija = -1;
+        }
+        actualizarBarras();
+        dibujar();
+    }
+
+    // Texto que se muestra cuando la grilla no tiene datos.
+    public void setMensaje(String mensaje) {
+        this.mensaje = mensaje;
+        dibujar();
+    }
+
+    public int getFilaSeleccionada() {
+        return filaSeleccionada;
+    }
+
+    public int getColumnaSeleccionada() {
+        return columnaSeleccionada;
+    }
+
+    // Selecciona la celda y mueve las barras lo justo para que quede a la vista.
+    public void irA(int fila, int columna) {
+        if (cantidad == 0) return;
+        filaSeleccionada = Math.max(0, Math.min(fila, cantidad - 1));
+        columnaSeleccionada = Math.max(0, Math.min(columna, cantidad - 1));
+        mostrar(barraVertical, filaSeleccionada, filasMoviles());
+        mostrar(barraHorizontal, columnaSeleccionada, columnasMoviles());
+        dibujar();
+    }
+
+    // Fija la fila y la columna seleccionadas debajo de los encabezados, o las suelta.
+    public void fijarSeleccion(boolean fijar) {
+        filaFija = fijar ? filaSeleccionada : -1;
+        columnaFija = fijar ? columnaSeleccionada : -1;
+        actualizarBarras();
+        dibujar();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double anchoBarra = barraVertical.prefWidth(-1);
+        double altoBarra = barraHorizontal.prefHeight(-1);
+        double ancho = Math.max(0, getWidth() - anchoBarra);
+        double alto = Math.max(0, getHeight() - altoBarra);
+        canvas.setWidth(ancho);
+        canvas.setHeight(alto);
+        barraVertical.resizeRelocate(ancho, 0, anchoBarra, alto);
+        barraHorizontal.resizeRelocate(0, alto, ancho, altoBarra);
+        actualizarBarras();
+        dibujar();
+    }
+
+    // Filas enteras que caben debajo de los encabezados y de la fila fija, al menos una.
+    private int filasMoviles() {
+        int caben = (int) ((canvas.getHeight() - ALTO_FILA) / ALTO_FILA) - (filaFija >= 0 ? 1 : 0);
+        return Math.max(1, caben);
+    }
+
+    private int columnasMoviles() {
+        int caben = (int) ((canvas.getWidth() - ANCHO_NOMBRES) / ANCHO_COLUMNA) - (columnaFija >= 0 ? 1 : 0);
+        return Math.max(1, caben);
+    }
+
+    // El valor de cada barra es la primera fila o columna que se ve en la parte que se mueve.
+    private void actualizarBarras() {
+        configurarBarra(barraVertical, filasMoviles());
+        configurarBarra(barraHorizontal, columnasMoviles());
+    }
+
+    private void configurarBarra(ScrollBar barra, int visibles) {
+        double maximo = Math.max(0, cantidad - visibles);
+        barra.setMin(0);
+        barra.setMax(maximo);
+        barra.setVisibleAmount(maximo == 0 ? 1 : Math.min(visibles, maximo));
+        barra.setUnitIncrement(1);
+        barra.setBlockIncrement(visibles);
+        barra.setValue(Math.min(barra.getValue(), maximo));
+        barra.setDisable(maximo == 0);
+    }
+
+    private void mostrar(ScrollBar barra, int indice, int visibles) {
+        int primera = (int) barra.getValue();
+        if (indice < primera) {
+            barra.setValue(indice);
+        } else if (indice >= primera + visibles) {
+            barra.setValue(Math.min(barra.getMax(), indice - visibles + 1));
+        }
+    }
+
+    // Índice de la fila que se dibuja en la posición dada debajo del encabezado, o -1 si no hay.
+    private int filaEnPosicion(int posicion) {
+        if (filaFija >= 0) {
+            if (posicion == 0) return filaFija;
+            posicion--;
+        }
+        int fila = (int) barraVertical.getValue() + posicion;
+        return fila < cantidad ? fila : -1;
+    }
+
+    private int columnaEnPosicion(int posicion) {
+        if (columnaFija >= 0) {
+            if (posicion == 0) return columnaFija;
+            posicion--;
+        }
+        int columna = (int) barraHorizontal.getValue() + posicion;
+        return columna < cantidad ? columna : -1;
+    }
+
+    /*
+     Dibuja solo lo que se ve: los encabezados, la fila y columna fijas y las celdas visibles. Cada
+     valor se lee de la matriz y se formatea al dibujarlo, así nunca hay más textos que celdas en pantalla.
+     */
+    private void dibujar() {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double ancho = canvas.getWidth();
+        double alto = canvas.getHeight();
+        gc.setFill(Color.WHITE);
+        gc.fillRect(0, 0, ancho, alto);
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+
+        if (cantidad == 0 || valores == null) {
+            gc.setFill(Color.GRAY);
+            gc.setFont(FUENTE);
+            gc.fillText(mensaje, ancho / 2, alto / 2);
+            return;
+        }
+
+        int filasEnPantalla = (int) Math.ceil((alto - ALTO_FILA) / ALTO_FILA);
+        int columnasEnPantalla = (int) Math.ceil((ancho - ANCHO_NOMBRES) / ANCHO_COLUMNA);
+
+        // Celdas de valores
+        gc.setFont(FUENTE);
+        for (int p = 0; p < filasEnPantalla; p++) {
+            int i = filaEnPosicion(p);
+            if (i < 0) break;
+            double y = ALTO_FILA * (p + 1);
+            for (int q = 0; q < columnasEnPantalla; q++) {
+                int j = columnaEnPosicion(q);
+                if (j < 0) break;
+                double x = ANCHO_NOMBRES + ANCHO_COLUMNA * q;
+                Color fondo = i == filaSeleccionada && j == columnaSeleccionada ? COLOR_SELECCION
+                        : i == filaSeleccionada || j == columnaSeleccionada ? COLOR_CRUZ : Color.WHITE;
+                celda(gc, x, y, ANCHO_COLUMNA, fondo, i == j ? Color.GRAY : Color.BLACK, formatear(valores.valor(i, j)));
+            }
+        }
+
+        // Columna de nombres de origen
+        gc.setFont(FUENTE_NEGRITA);
+        for (int p = 0; p < filasEnPantalla; p++) {
+            int i = filaEnPosicion(p);
+            if (i < 0) break;
+            celda(gc, 0, ALTO_FILA * (p + 1), ANCHO_NOMBRES, i == filaSeleccionada ? COLOR_SELECCION : COLOR_NOMBRES,
+                    Color.BLACK, nombres.apply(i));
+        }
+
+        // Fila de nombres de destino
+        celda(gc, 0, 0, ANCHO_NOMBRES, COLOR_ENCABEZADO, Color.WHITE, "NODOS");
+        for (int q = 0; q < columnasEnPantalla; q++) {
+            int j = columnaEnPosicion(q);
+            if (j < 0) break;
+            celda(gc, ANCHO_NOMBRES + ANCHO_COLUMNA * q, 0, ANCHO_COLUMNA,
+                    j == columnaSeleccionada ? COLOR_SELECCION : COLOR_ENCABEZADO,
+                    j == columnaSeleccionada ? Color.BLACK : Color.WHITE, nombres.apply(j));
+        }
+
+        // Bordes de las partes fijas
+        gc.setStroke(Color.BLACK);
+        double bordeY = ALTO_FILA * (filaFija >= 0 ? 2 : 1);
+        double bordeX = ANCHO_NOMBRES + (columnaFija >= 0 ? ANCHO_COLUMNA : 0);
+        gc.strokeLine(0, bordeY, ancho, bordeY);
+        gc.strokeLine(bordeX, 0, bordeX, alto);
+    }
+
+    // Dibuja una celda con su fondo, su borde y el texto centrado, recortado si no cabe.
+    private void celda(GraphicsContext gc, double x, double y, double ancho, Color fondo, Color colorTexto, String texto) {
+        gc.setFill(fondo);
+        gc.fillRect(x, y, ancho, ALTO_FILA);
+        gc.setStroke(COLOR_LINEAS);
+        gc.strokeRect(x + 0.5, y + 0.5, ancho - 1, ALTO_FILA - 1);
+        gc.setFill(colorTexto);
+        gc.fillText(recortar(texto, ancho), x + ancho / 2, y + ALTO_FILA / 2);
+    }
+
+    // Corta el texto con "..." si es más largo que lo que cabe aproximadamente en el ancho.
+    private static String recortar(String texto, double ancho) {
+        int maximo = (int) ((ancho - 8) / 7);
+        if (texto == null) {
+            return "";
+        }
+        if (texto.length() <= maximo) {
+            return texto;
+        }
+        return texto.substring(0, Math.max(0, maximo - 3)) + "...";
+    }
+
+    // Formateo: 'inf' si es infinito, o el valor con un decimal
+    private static String formatear(float valor) {
+        if (valor == Float.POSITIVE_INFINITY) {
+            return "inf";
+        }
+        return String.format("%.1f", valor);
+    }
+
+    // Selecciona la celda bajo el mouse; en los encabezados selecciona solo la fila o la columna.
+    private void clicEnCelda(MouseEvent evento) {
+        requestFocus();
+        if (cantidad == 0) return;
+        int p = (int) (evento.getY() / ALTO_FILA) - 1;
+        int q = (int) Math.floor((evento.getX() - ANCHO_NOMBRES) / ANCHO_COLUMNA);
+        int fila = p >= 0 ? filaEnPosicion(p) : -1;
+        int columna = q >= 0 ? columnaEnPosicion(q) : -1;
+        if (fila >= 0) filaSeleccionada = fila;
+        if (columna >= 0) columnaSeleccionada = columna;
+        dibujar();
+    }
+
+    private void moverConRueda(ScrollEvent evento) {
+        double delta = evento.getDeltaY() != 0 ? evento.getDeltaY() : evento.getDeltaX();
+        if (delta == 0) return;
+        ScrollBar barra = evento.isShiftDown() || evento.getDeltaY() == 0 ? barraHorizontal : barraVertical;
+        double valor = barra.getValue() - Math.signum(delta) * PASO_RUEDA;
+        barra.setValue(Math.max(barra.getMin(), Math.min(barra.getMax(), valor)));
+        evento.consume();
+    }
+
+    // Las flechas mueven la selección, las teclas de página avanzan una pantalla.
+    private void moverConTeclado(KeyEvent evento) {
+        if (cantidad == 0) return;
+        int fila = Math.max(filaSeleccionada, 0);
+        int columna = Math.max(columnaSeleccionada, 0);
+        switch (evento.getCode()) {
+            case UP: fila--; break;
+            case DOWN: fila++; break;
+            case LEFT: columna--; break;
+            case RIGHT: columna++; break;
+            case PAGE_UP: fila -= filasMoviles(); break;
+            case PAGE_DOWN: fila += filasMoviles(); break;
+            case HOME: columna = 0; break;
+            case END: columna = cantidad - 1; break;
+            default: return;
+        }
+        irA(fila, columna);
+        evento.consume();
+    }
+}
@@ -13,6 +13,7 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import util.TodosLosPares;
 import java.io.IOException;
 import java.util.Map;
 import java.util.Optional;
@@ -85,6 +86,7 @@ public class ListRutaController {
 
             Servicio.getInstance().getRutas().remove(seleccionado.getId()); // Eliminar de la lista.
             Servicio.getInstance().getMapa().eliminarRuta(seleccionado); // Eliminar la ruta del grafo.
+            TodosLosPares.actualizarRuta(Servicio.getInstance().getMapa(), seleccionado); // Poner al día la matriz.
             RutaDAO.getInstance().delete(seleccionado.getId()); // Eliminar de la base de datos.
 
             tablaRutas.getItems().remove(seleccionado); // Eliminar de la tabla.
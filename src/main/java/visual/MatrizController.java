@@ -1,58 +1,105 @@
 package visual;
 
 
+import estructura.GrafoCompacto;
 import estructura.GrafoTransporte;
 import estructura.MatrizDistMinimas;
 import estructura.Servicio; // Importar Servicio
 
-import util.FloydWarshall;
+import util.Caminos;
+import util.Dijkstra.Criterio;
+import util.TodosLosPares;
 
-import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
-import javafx.scene.control.TableColumn;
-import javafx.scene.control.TableView;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TextField;
+import javafx.scene.control.ToggleButton;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 
 /*
 Clase: MatrizController
-Objetivo: Controla la vista de la matriz.
+Objetivo: Controla la vista de la matriz. La matriz se muestra en una GrillaMatriz que lee
+          los valores directamente de MatrizDistMinimas y formatea solo las celdas visibles.
+          La matriz se calcula o se carga en un hilo de fondo para no congelar la ventana.
 */
 public class MatrizController {
 
     @FXML
-    private TableView<ObservableList<String>> TablaMatriz;
+    private GrillaMatriz grillaMatriz;
 
+    // Busqueda de estaciones por nombre en las filas (origen) y columnas (destino)
     @FXML
-    private TableColumn<ObservableList<String>, String> columnaNodos;
+    private TextField txtBuscarOrigen;
 
-    private GrafoTransporte grafo;
+    @FXML
+    private TextField txtBuscarDestino;
 
     @FXML
-    public void initialize() {
-        // La columna "NODOS" mostrara el nombre de la estacion de Origen (indice 0 en la lista de la fila).
-        columnaNodos.setCellValueFactory(param -> new SimpleStringProperty(param.getValue().get(0)));
-        columnaNodos.setMinWidth(100);
+    private ToggleButton tglFijar;
 
-        TablaMatriz.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY); // Opcional, pero bueno para ajustar el tamaño.
-        TablaMatriz.getColumns().forEach(column -> column.setReorderable(false));
+    // Criterio con el que se eligen los caminos y métrica que se muestra de esos caminos
+    @FXML
+    private ComboBox<Criterio> cmbCriterio;
 
-        //Establece un Cell Factory para aplicar negrita
-        columnaNodos.setCellFactory(column -> new javafx.scene.control.TableCell<ObservableList<String>, String>() {
-            @Override
-            protected void updateItem(String item, boolean empty) {
-                super.updateItem(item, empty);
-
-                if (empty || item == null) {
-                    setText(null);
-                } else {
-                    setText(item);
-                    // Aplica el estilo CSS para negrita
-                    this.setStyle("-fx-font-weight: bold;");
-                }
-            }
-        });
+    @FXML
+    private ComboBox<Metrica> cmbMetrica;
+
+    // Indicador de que la matriz se está calculando
+    @FXML
+    private ProgressIndicator indicadorCalculo;
+
+    private GrafoTransporte grafo;
+
+    // Última matriz calculada y su criterio, cambiar la métrica solo vuelve a mostrarla
+    private MatrizDistMinimas matrizResultante;
+    private Criterio criterioResultante;
+
+    // Hilos de fondo para calcular la matriz, no impiden que la aplicación se cierre
+    private static final ExecutorService EJECUTOR_MATRIZ = Executors.newCachedThreadPool(tarea -> {
+        Thread hilo = new Thread(tarea, "calculo-matriz");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    // Cálculo en curso, el resultado de uno anterior ya no se muestra
+    private Task<MatrizDistMinimas> calculoActual;
+
+    // Valores que se pueden mostrar de cada camino
+    private enum Metrica {
+        VALOR("Valor del criterio"), DISTANCIA("Distancia"), TIEMPO("Tiempo"), COSTO("Costo");
+
+        private final String nombre;
+
+        Metrica(String nombre) {
+            this.nombre = nombre;
+        }
+
+        @Override
+        public String toString() {
+            return nombre;
+        }
+    }
+
+    @FXML
+    public void initialize() {
+        // Escribir busca desde la primera estación, Enter pasa a la siguiente que coincida
+        txtBuscarOrigen.textProperty().addListener((obs, anterior, nuevo) -> buscarOrigen(0));
+        txtBuscarOrigen.setOnAction(event -> buscarOrigen(grillaMatriz.getFilaSeleccionada() + 1));
+        txtBuscarDestino.textProperty().addListener((obs, anterior, nuevo) -> buscarDestino(0));
+        txtBuscarDestino.setOnAction(event -> buscarDestino(grillaMatriz.getColumnaSeleccionada() + 1));
+        tglFijar.selectedProperty().addListener((obs, anterior, nuevo) -> grillaMatriz.fijarSeleccion(nuevo));
+
+        // Cambiar el criterio recalcula la matriz, cambiar la métrica no
+        cmbCriterio.setItems(FXCollections.observableArrayList(Criterio.values()));
+        cmbCriterio.setValue(Criterio.DISTANCIA);
+        cmbMetrica.setItems(FXCollections.observableArrayList(Metrica.values()));
+        cmbMetrica.setValue(Metrica.VALOR);
 
         //Cargar el grafo existente
         cargarGrafoExistente();
@@ -60,9 +107,11 @@ public class MatrizController {
         //Calcular y mostrar la matriz solo si hay estaciones
         if (grafo.contarEstaciones() > 0) {
             calcularYMostrarMatriz();
+            cmbCriterio.valueProperty().addListener((obs, anterior, nuevo) -> calcularYMostrarMatriz());
+            cmbMetrica.valueProperty().addListener((obs, anterior, nuevo) -> mostrarMatriz());
         } else {
             //Si no hay datos
-            TablaMatriz.setPlaceholder(new javafx.scene.control.Label("No hay estaciones ni rutas para calcular la matriz."));
+            grillaMatriz.setMensaje("No hay estaciones ni rutas para calcular la matriz.");
         }
     }
 
@@ -72,62 +121,116 @@ public class MatrizController {
         // El grafo ya se carga en el Servicio al inicio.
     }
 
-    //Ejecuta FLoy y muestra la matriz
+    //Calcula la matriz de todos los pares en segundo plano y la muestra al terminar
     private void calcularYMostrarMatriz() {
         if (grafo == null) return;
+        cancelarCalculo();
+
+        // Calcular los valores mínimos del criterio, con Floyd-Warshall o una busqueda por estación según la densidad.
+        // La matriz trae también la distancia, el tiempo y el costo de cada camino. Si el grafo no cambió desde
+        // la última vez que se calculó, se abre la matriz guardada en disco en vez de recalcularla.
+        // La instantánea se toma en el hilo de la interfaz, así el cálculo no choca con ediciones del grafo.
+        Criterio criterio = cmbCriterio.getValue();
+        long version = grafo.getVersion();
+        GrafoCompacto compacto = grafo.compactar();
+        Task<MatrizDistMinimas> tarea = new Task<>() {
+            @Override
+            protected MatrizDistMinimas call() {
+                return TodosLosPares.calcularOCargar(compacto, version, criterio);
+            }
+        };
+
+        // Solo se muestra el resultado si este sigue siendo el cálculo más reciente
+        tarea.setOnSucceeded(e -> {
+            if (tarea != calculoActual) return;
+            terminarCalculo();
+            matrizResultante = tarea.getValue();
+            criterioResultante = criterio;
+            mostrarMatriz();
+        });
+        tarea.setOnFailed(e -> {
+            if (tarea != calculoActual) return;
+            terminarCalculo();
+            Throwable error = tarea.getException();
+            error.printStackTrace();
+            grillaMatriz.setMensaje("Error al calcular la matriz: " + error.getMessage());
+        });
 
-        // Calcular las distancias mínimas (basadas en distancia)
-        MatrizDistMinimas matrizResultante = FloydWarshall.calcularDistanciasMinimas(grafo);
-        int n = matrizResultante.getTamanyo();
-
-        // Limpiar columnas previas (excepto la primera que es 'NODOS')
-        while (TablaMatriz.getColumns().size() > 1) {
-            TablaMatriz.getColumns().remove(1);
+        calculoActual = tarea;
+        indicadorCalculo.setVisible(true);
+        if (matrizResultante == null) {
+            grillaMatriz.setMensaje("Calculando la matriz...");
         }
+        EJECUTOR_MATRIZ.execute(tarea);
+    }
 
-        //Crear y añadir las columnas de Destino a la tabla
-        for (int j = 0; j < n; j++) {
-            // El encabezado de la columna será el nombre de la estacion de Destino
-            TableColumn<ObservableList<String>, String> nuevaColumna =
-                    new TableColumn<>(matrizResultante.getEstacion(j).getNombre());
-
-            // ColIndex es la posicion del dato en la lista de la fila (1, 2, 3...)
-            final int colIndex = j + 1;
-
-            // Definir como obtener el valor: del índice 'colIndex' de la lista de strings de la fila
-            nuevaColumna.setCellValueFactory(param -> new SimpleStringProperty(param.getValue().get(colIndex)));
-            nuevaColumna.setMinWidth(80);
-            TablaMatriz.getColumns().add(nuevaColumna);
+    // Cancela el cálculo en curso, su resultado ya no se va a mostrar.
+    private void cancelarCalculo() {
+        if (calculoActual != null) {
+            calculoActual.cancel();
+            terminarCalculo();
         }
+    }
 
-        //Preparar los datos fila por fila
-        ObservableList<ObservableList<String>> datosTabla = FXCollections.observableArrayList();
+    private void terminarCalculo() {
+        calculoActual = null;
+        indicadorCalculo.setVisible(false);
+    }
 
-        for (int i = 0; i < n; i++) {
-            // Una lista para todos los valores de una fila
-            ObservableList<String> fila = FXCollections.observableArrayList();
+    //Muestra la métrica elegida de la última matriz calculada
+    //La grilla solo guarda cómo leer cada celda, no se crea ningún texto hasta que la celda se ve
+    private void mostrarMatriz() {
+        if (matrizResultante == null) return;
+        MatrizDistMinimas matriz = matrizResultante;
+        Metrica metrica = cmbMetrica.getValue();
+        Criterio criterio = criterioResultante;
+        grillaMatriz.setDatos(matriz.getTamanyo(), (i, j) -> valorCelda(matriz, criterio, metrica, i, j),
+                i -> matriz.getEstacion(i).getNombre());
+    }
 
-            // Primer elemento (Índice 0): Nombre de la estacion de Origen (para la columna "NODOS")
-            fila.add(matrizResultante.getEstacion(i).getNombre());
+    //Selecciona la primera fila desde 'desde' cuyo origen contiene el texto buscado
+    private void buscarOrigen(int desde) {
+        int fila = buscarEstacion(txtBuscarOrigen.getText(), desde);
+        if (fila >= 0) {
+            grillaMatriz.irA(fila, Math.max(grillaMatriz.getColumnaSeleccionada(), 0));
+        }
+    }
 
-            // Distancias calculadas (índices 1 a n)
-            for (int j = 0; j < n; j++) {
-                float distancia = matrizResultante.getDistancia(i, j);
-                String valor;
+    //Igual que buscarOrigen pero para la columna de destino
+    private void buscarDestino(int desde) {
+        int columna = buscarEstacion(txtBuscarDestino.getText(), desde);
+        if (columna >= 0) {
+            grillaMatriz.irA(Math.max(grillaMatriz.getFilaSeleccionada(), 0), columna);
+        }
+    }
 
-                // Formateo: 'inf' si es infinito, o el valor con un decimal
-                if (distancia == Float.POSITIVE_INFINITY) {
-                    valor = "inf"; // Usar 'inf' en lugar de 'infinito' o el símbolo 'oo'
-                } else {
-                    valor = String.format("%.1f", distancia);
-                }
-                fila.add(valor);
+    // Índice de la primera estación desde 'desde' (volviendo al inicio) cuyo nombre contiene el texto, o -1
+    private int buscarEstacion(String texto, int desde) {
+        if (matrizResultante == null || texto == null || texto.isBlank()) return -1;
+        String buscado = texto.trim().toLowerCase();
+        int n = matrizResultante.getTamanyo();
+        for (int k = 0; k < n; k++) {
+            int i = (desde + k) % n;
+            String nombre = matrizResultante.getEstacion(i).getNombre();
+            if (nombre != null && nombre.toLowerCase().contains(buscado)) {
+                return i;
             }
-
-            datosTabla.add(fila);
         }
+        return -1;
+    }
 
-        //Establecer todos los datos en la tabla
-        TablaMatriz.setItems(datosTabla);
+    // Valor de la métrica para el camino de i a j en la matriz
+    // En TRANSBORDOS el valor del criterio también cuenta las rutas, se muestra solo la cantidad de transbordos
+    private static float valorCelda(MatrizDistMinimas matriz, Criterio criterio, Metrica metrica, int i, int j) {
+        switch (metrica) {
+            case DISTANCIA:
+                return matriz.getDistanciaRecorrida(i, j);
+            case TIEMPO:
+                return matriz.getTiempo(i, j);
+            case COSTO:
+                return matriz.getCosto(i, j);
+            default:
+                return (float) Caminos.valorDelCriterio(matriz.getDistancia(i, j), criterio, matriz.getTamanyo());
+        }
     }
-}
\ No newline at end of file
+}
@@ -18,6 +18,7 @@ import java.util.*;
 import org.kordamp.ikonli.fontawesome5.FontAwesomeSolid;
 import org.kordamp.ikonli.javafx.FontIcon;
 import util.Randomizacion;
+import util.TodosLosPares;
 import estructura.Ruta;
 
 
@@ -230,6 +231,7 @@ public class PrincipalController {
 
         //Hubo evento
         if(rutaCambio != null) {
+            TodosLosPares.actualizarRuta(Servicio.getInstance().getMapa(), rutaCambio); // Poner al día la matriz.
             if(numero == Randomizacion.CHOQUE){
                 tipoEvento = "OCURRIÓ UN: CHOQUE";
             }
@@ -12,6 +12,7 @@ import javafx.scene.shape.Line;
 import javafx.scene.shape.Polygon;
 import javafx.stage.Stage;
 import org.kordamp.ikonli.javafx.FontIcon;
+import util.TodosLosPares;
 
 import static visual.Setups.alerta;
 
@@ -161,6 +162,7 @@ public class RutaController {
                 EstacionDAO.getInstance().update(destino);
 
                 grafo.agregarRuta(nuevaRuta); // Agrega la ruta directamente al grafo.
+                TodosLosPares.actualizarRuta(grafo, nuevaRuta); // Poner al día la matriz de distancias mínimas.
                 Servicio.getInstance().getRutas().put(nuevaRuta.getId(), nuevaRuta); // también agrégala al Servicio
                 RutaDAO.getInstance().save(nuevaRuta); // Guardar en la base de datos.
 
@@ -173,6 +175,8 @@ public class RutaController {
                 editando.setTiempo((double) distancia / editando.getOrigen().getVelocidad());
                 editando.setCosto(Ruta.calculoDeCosto(editando.getOrigen(), distancia, editando.getOrigen().getCostoBase()));
                 editando.setPonderacion((float)(editando.getCosto() + editando.getTiempo()) / 2.0f);
+                grafo.marcarModificado(); // Avisar al grafo que cambiaron los pesos de la ruta.
+                TodosLosPares.actualizarRuta(grafo, editando); // Poner al día la matriz de distancias mínimas.
                 RutaDAO.getInstance().update(editando); // Actualizar en la base de datos.
 
                 alerta("Enhorabuena!!", "Se ha modificado la ruta correctamente!", Alert.AlertType.INFORMATION);
@@ -0,0 +1,89 @@
+package util;
+
+import estructura.GrafoCompacto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import util.Dijkstra.Criterio;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+Clase: ContraccionJerarquicaTest
+Objetivo: Comprueba que la jerarquía de contracción da el mismo valor y caminos del mismo valor
+          que Dijkstra para todos los criterios, recién construida y después de guardarla y
+          cargarla sobre otra instantánea del mismo grafo.
+*/
+class ContraccionJerarquicaTest {
+
+    @TempDir
+    Path carpeta;
+
+    @Test
+    void igualQueDijkstraAntesYDespuesDeGuardar() {
+        for (long semilla = 1; semilla < 4; semilla++) {
+            for (double sinDistancia : new double[]{0.0, 0.3}) {
+                GrafoCompacto grafo = GrafosDePrueba.generar(120, 400, semilla, sinDistancia).compactar();
+                for (Criterio criterio : Criterio.values()) {
+                    String caso = criterio + " (semilla " + semilla + ", sin distancia " + sinDistancia + ")";
+                    ContraccionJerarquica jerarquia = new ContraccionJerarquica(grafo, criterio);
+                    comprobar(grafo, jerarquia, caso);
+
+                    Path archivo = carpeta.resolve("jerarquia-" + criterio + "-" + semilla + ".bin");
+                    assertTrue(jerarquia.guardar(archivo), caso);
+                    GrafoCompacto otra = GrafosDePrueba.generar(120, 400, semilla, sinDistancia).compactar();
+                    ContraccionJerarquica cargada = ContraccionJerarquica.cargar(archivo, otra);
+                    assertNotNull(cargada, caso);
+                    assertEquals(criterio, cargada.getCriterio(), caso);
+                    assertEquals(jerarquia.getCantAtajos(), cargada.getCantAtajos(), caso);
+                    comprobar(otra, cargada, caso + " cargada");
+                }
+            }
+        }
+    }
+
+    @Test
+    void noCargaSobreOtroGrafo() {
+        GrafoCompacto grafo = GrafosDePrueba.generar(60, 200, 1).compactar();
+        Path archivo = carpeta.resolve("jerarquia.bin");
+        assertTrue(new ContraccionJerarquica(grafo, Criterio.TIEMPO).guardar(archivo));
+        GrafoCompacto otro = GrafosDePrueba.generar(60, 200, 2).compactar();
+        assertNull(ContraccionJerarquica.cargar(archivo, otro));
+    }
+
+    private static void comprobar(GrafoCompacto grafo, ContraccionJerarquica jerarquia, String caso) {
+        int n = grafo.getCantEstaciones();
+        Criterio criterio = jerarquia.getCriterio();
+        double[] pesos = Caminos.pesos(grafo, criterio);
+        EspacioBusqueda espacio = new EspacioBusqueda(n);
+        for (int o = 0; o < n; o += 2) {
+            Dijkstra.buscarMejorCamino(grafo, o, -1, pesos, espacio);
+            for (int d = 0; d < n; d++) {
+                if (o == d) continue;
+                String par = o + " -> " + d + " " + caso;
+                double esperado = espacio.getDistancia(d);
+                int[] aristas = jerarquia.buscar(o, d);
+                if (esperado == Double.POSITIVE_INFINITY) {
+                    assertNull(aristas, par);
+                    assertEquals(Double.POSITIVE_INFINITY, jerarquia.valor(o, d), par);
+                    continue;
+                }
+                double tolerancia = Math.max(1e-6, esperado * 1e-9);
+                assertEquals(Caminos.valorDelCriterio(esperado, criterio, n), jerarquia.valor(o, d), tolerancia, par);
+
+                // Las rutas desempacadas van encadenadas del origen al destino y suman el valor de Dijkstra.
+                assertNotNull(aristas, par);
+                int actual = o;
+                double valor = 0.0;
+                for (int a : aristas) {
+                    assertEquals(actual, grafo.getOrigen(a), par);
+                    actual = grafo.getDestino(a);
+                    valor += pesos[a];
+                }
+                assertEquals(d, actual, par);
+                assertEquals(esperado, valor, tolerancia, par);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package util;
+
+import estructura.GrafoCompacto;
+import estructura.ResultadoRuta;
+import org.junit.jupiter.api.Test;
+import util.Dijkstra.Criterio;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+Clase: DijkstraBidireccionalTest
+Objetivo: Comprueba que la busqueda bidireccional encuentra caminos del mismo valor que la
+          busqueda en un sentido, para todos los criterios y muchos pares de estaciones.
+*/
+class DijkstraBidireccionalTest {
+
+    @Test
+    void igualQueLaBusquedaEnUnSentido() {
+        for (long semilla = 1; semilla < 6; semilla++) {
+            GrafoCompacto grafo = GrafosDePrueba.generar(150, 500, semilla).compactar();
+            int n = grafo.getCantEstaciones();
+            for (Criterio criterio : Criterio.values()) {
+                double[] pesos = Caminos.pesos(grafo, criterio);
+                for (int o = 0; o < n; o += 3) {
+                    for (int d = 0; d < n; d += 2) {
+                        if (o == d) continue;
+                        ResultadoRuta esperado = Dijkstra.EncontrarMejorRuta(grafo, grafo.getEstacion(o), grafo.getEstacion(d), criterio);
+                        ResultadoRuta obtenido = Dijkstra.EncontrarMejorRutaBidireccional(grafo, grafo.getEstacion(o), grafo.getEstacion(d), criterio);
+                        String par = criterio + " " + o + " -> " + d + " (semilla " + semilla + ")";
+                        if (esperado == null) {
+                            assertNull(obtenido, par);
+                            continue;
+                        }
+                        assertNotNull(obtenido, par);
+                        assertEquals(valor(grafo, esperado, pesos), valor(grafo, obtenido, pesos), 1e-6, par);
+                        assertEquals(grafo.getEstacion(o), obtenido.getCamino().getFirst(), par);
+                        assertEquals(grafo.getEstacion(d), obtenido.getCamino().getLast(), par);
+                    }
+                }
+            }
+        }
+    }
+
+    // Valor del camino de la ruta con los pesos del criterio.
+    private static double valor(GrafoCompacto grafo, ResultadoRuta ruta, double[] pesos) {
+        int[] camino = ruta.getCamino().stream().mapToInt(grafo::indiceDe).toArray();
+        return GrafosDePrueba.valorCamino(grafo, camino, pesos);
+    }
+}
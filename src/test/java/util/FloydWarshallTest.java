@@ -0,0 +1,52 @@
+package util;
+
+import estructura.GrafoCompacto;
+import estructura.MatrizDistMinimas;
+import org.junit.jupiter.api.Test;
+import util.Dijkstra.Criterio;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+Clase: FloydWarshallTest
+Objetivo: Comprueba que el Floyd-Warshall por bloques da los mismos valores que un Dijkstra
+          desde cada estación, y que sus caminos llegan al destino con ese valor. Los tamaños
+          cubren un solo bloque incompleto, exactamente un bloque y un bloque más una estación.
+*/
+class FloydWarshallTest {
+
+    private static final int[] TAMANYOS = {1, 2, 17, 63, 64, 65, 130};
+
+    @Test
+    void igualQueDijkstraDesdeCadaEstacion() {
+        for (int n : TAMANYOS) {
+            GrafoCompacto grafo = GrafosDePrueba.generar(n, 4 * n, n).compactar();
+            EspacioBusqueda espacio = new EspacioBusqueda(n);
+            for (Criterio criterio : Criterio.values()) {
+                MatrizDistMinimas matriz = FloydWarshall.calcularDistanciasMinimas(grafo, criterio);
+                double[] pesos = Caminos.pesos(grafo, criterio);
+                assertEquals(n, matriz.getTamanyo());
+                for (int o = 0; o < n; o++) {
+                    Dijkstra.buscarMejorCamino(grafo, o, -1, pesos, espacio);
+                    for (int d = 0; d < n; d++) {
+                        String par = criterio + " " + o + " -> " + d + " (n = " + n + ")";
+                        double esperado = espacio.getDistancia(d);
+                        float obtenido = matriz.getDistancia(o, d);
+                        if (esperado == Double.POSITIVE_INFINITY) {
+                            assertEquals(Float.POSITIVE_INFINITY, obtenido, par);
+                            assertNull(matriz.getCamino(o, d), par);
+                            continue;
+                        }
+                        assertEquals(esperado, obtenido, Math.max(1e-3, esperado * 1e-5), par);
+                        int[] camino = matriz.getCamino(o, d);
+                        assertNotNull(camino, par);
+                        assertEquals(o, camino[0], par);
+                        assertEquals(d, camino[camino.length - 1], par);
+                        assertEquals(esperado, GrafosDePrueba.valorCamino(grafo, camino, pesos),
+                                Math.max(1e-3, esperado * 1e-5), par);
+                    }
+                }
+            }
+        }
+    }
+}
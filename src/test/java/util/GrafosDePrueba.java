@@ -0,0 +1,72 @@
+package util;
+
+import estructura.Estacion;
+import estructura.GrafoCompacto;
+import estructura.GrafoTransporte;
+import estructura.Ruta;
+import estructura.TipoEstacion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/*
+Clase: GrafosDePrueba
+Objetivo: Genera grafos aleatorios reproducibles para las pruebas: la misma semilla da siempre
+          las mismas estaciones, rutas e ids.
+*/
+final class GrafosDePrueba {
+
+    private GrafosDePrueba() {
+    }
+
+    // Grafo con n estaciones y hasta m rutas al azar (se descartan las que van de una estación a sí misma).
+    static GrafoTransporte generar(int n, int m, long semilla) {
+        return generar(n, m, semilla, 0.0);
+    }
+
+    // Igual que generar, pero una proporción de las rutas tiene distancia 0 (y por eso tiempo 0), lo que da empates.
+    static GrafoTransporte generar(int n, int m, long semilla, double proporcionSinDistancia) {
+        Random random = new Random(semilla);
+        GrafoTransporte grafo = new GrafoTransporte();
+        List<Estacion> estaciones = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            TipoEstacion tipo = TipoEstacion.values()[random.nextInt(TipoEstacion.values().length)];
+            Estacion estacion = new Estacion("E" + i, "Z", random.nextDouble() * 100, random.nextDouble() * 100,
+                    1 + random.nextInt(20), 1 + random.nextInt(300), tipo, null);
+            estacion.setId(new UUID(semilla, i));
+            estaciones.add(estacion);
+            grafo.agregarEstacion(estacion);
+        }
+        for (int k = 0; k < m && n > 1; k++) {
+            Estacion origen = estaciones.get(random.nextInt(n));
+            Estacion destino = estaciones.get(random.nextInt(n));
+            if (origen == destino) continue;
+            int distancia = proporcionSinDistancia > 0 && random.nextDouble() < proporcionSinDistancia
+                    ? 0 : 1 + random.nextInt(1000);
+            Ruta ruta = new Ruta(origen, destino, distancia);
+            ruta.setId(new UUID(semilla + 7, k));
+            grafo.agregarRuta(ruta);
+        }
+        return grafo;
+    }
+
+    /*
+     Valor de un camino dado por los índices de sus estaciones, tomando entre rutas paralelas la de
+     menor peso. Retorna infinito si dos estaciones seguidas no tienen una ruta que las una.
+     */
+    static double valorCamino(GrafoCompacto grafo, int[] camino, double[] pesos) {
+        double total = 0.0;
+        for (int k = 0; k + 1 < camino.length; k++) {
+            double menor = Double.POSITIVE_INFINITY;
+            for (int a = grafo.getDesplazamientos()[camino[k]]; a < grafo.getDesplazamientos()[camino[k] + 1]; a++) {
+                if (grafo.getDestinos()[a] == camino[k + 1]) {
+                    menor = Math.min(menor, pesos[a]);
+                }
+            }
+            total += menor;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,258 @@
+package util;
+
+import estructura.Estacion;
+import estructura.GrafoCompacto;
+import estructura.GrafoTransporte;
+import estructura.MatrizDistMinimas;
+import estructura.ResultadoRuta;
+import estructura.Ruta;
+import org.junit.jupiter.api.Test;
+import util.Dijkstra.Criterio;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+Clase: TodosLosParesTest
+Objetivo: Comprueba que las rutas armadas con las siguientes estaciones de la matriz, calculada
+          con una busqueda por estación o con Floyd-Warshall, tienen el valor de Dijkstra para
+          todos los criterios. Los grafos con rutas de distancia 0 tienen empates, donde elegir
+          mal las siguientes estaciones puede formar ciclos. También comprueba que la matriz
+          puesta al día con actualizarRuta tras cada cambio de una ruta es igual a recalcularla,
+          y que una matriz guardada en archivo se carga con los mismos bloques.
+*/
+class TodosLosParesTest {
+
+    @Test
+    void rutasDeLaMatrizIgualQueDijkstra() {
+        for (long semilla = 1; semilla < 4; semilla++) {
+            for (double sinDistancia : new double[]{0.0, 0.3}) {
+                GrafoCompacto grafo = GrafosDePrueba.generar(120, 400, semilla, sinDistancia).compactar();
+                for (Criterio criterio : Criterio.values()) {
+                    List<MatrizDistMinimas> matrices = List.of(
+                            TodosLosPares.calcularConBusquedas(grafo, criterio),
+                            FloydWarshall.calcularDistanciasMinimas(grafo, criterio));
+                    for (MatrizDistMinimas matriz : matrices) {
+                        comprobar(grafo, matriz, criterio, "semilla " + semilla + ", sin distancia " + sinDistancia);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void matrizGuardadaSeCargaIgual() throws IOException {
+        // No se usa @TempDir: en Windows un archivo mapeado no se puede borrar hasta que el recolector libere el mapeo
+        Path carpeta = Files.createTempDirectory("matrices");
+        try {
+            comprobarGuardarYCargar(carpeta);
+        } finally {
+            borrarSiSePuede(carpeta);
+        }
+    }
+
+    private static void comprobarGuardarYCargar(Path carpeta) throws IOException {
+        for (double sinDistancia : new double[]{0.0, 0.3}) {
+            GrafoCompacto grafo = GrafosDePrueba.generar(90, 300, 5, sinDistancia).compactar();
+            for (Criterio criterio : Criterio.values()) {
+                String caso = criterio + " (sin distancia " + sinDistancia + ")";
+                MatrizDistMinimas matriz = TodosLosPares.calcularConBusquedas(grafo, criterio);
+                long firma = TodosLosPares.firma(grafo, criterio);
+                Path archivo = carpeta.resolve(TodosLosPares.archivoMatriz(criterio, firma).getFileName());
+                assertTrue(matriz.guardar(archivo, firma), caso);
+
+                // Se carga sobre otra instantánea del mismo grafo, las estaciones se buscan por id
+                GrafoCompacto otra = GrafosDePrueba.generar(90, 300, 5, sinDistancia).compactar();
+                MatrizDistMinimas cargada = MatrizDistMinimas.cargar(archivo, firma, otra);
+                assertNotNull(cargada, caso);
+                assertEquals(matriz.getTamanyo(), cargada.getTamanyo(), caso);
+                assertTrue(cargada.tieneCaminos(), caso);
+                assertTrue(cargada.tieneMetricas(), caso);
+                int n = matriz.getTamanyo();
+                for (int i = 0; i < n; i++) {
+                    assertEquals(matriz.getEstacion(i).getId(), cargada.getEstacion(i).getId(), caso);
+                    for (int j = 0; j < n; j++) {
+                        String par = i + " -> " + j + " " + caso;
+                        assertEquals(matriz.getDistancia(i, j), cargada.getDistancia(i, j), par);
+                        assertEquals(matriz.getSiguiente(i, j), cargada.getSiguiente(i, j), par);
+                        assertEquals(matriz.getDistanciaRecorrida(i, j), cargada.getDistanciaRecorrida(i, j), par);
+                        assertEquals(matriz.getTiempo(i, j), cargada.getTiempo(i, j), par);
+                        assertEquals(matriz.getCosto(i, j), cargada.getCosto(i, j), par);
+                    }
+                }
+                comprobar(otra, cargada, criterio, caso + " cargada");
+
+                // Otra firma o un archivo truncado no se cargan
+                assertNull(MatrizDistMinimas.cargar(archivo, firma + 1, otra), caso);
+                Path truncado = carpeta.resolve("truncado-" + archivo.getFileName());
+                byte[] bytes = Files.readAllBytes(archivo);
+                Files.write(truncado, Arrays.copyOf(bytes, bytes.length - 4));
+                assertNull(MatrizDistMinimas.cargar(truncado, firma, otra), caso);
+            }
+        }
+    }
+
+    // Borra la carpeta y sus archivos; lo que sigue mapeado queda para borrarse al salir.
+    private static void borrarSiSePuede(Path carpeta) throws IOException {
+        // deleteOnExit borra en orden inverso al registro, la carpeta va primero para borrarse al final
+        carpeta.toFile().deleteOnExit();
+        try (Stream<Path> archivos = Files.list(carpeta)) {
+            archivos.forEach(archivo -> {
+                try {
+                    Files.deleteIfExists(archivo);
+                } catch (IOException e) {
+                    archivo.toFile().deleteOnExit();
+                }
+            });
+        }
+        try {
+            Files.deleteIfExists(carpeta);
+        } catch (IOException e) {
+            // Queda marcada para borrarse al salir
+        }
+    }
+
+    @Test
+    void actualizarRutaIgualQueRecalcular() {
+        for (long semilla = 1; semilla < 3; semilla++) {
+            for (double sinDistancia : new double[]{0.0, 0.3}) {
+                for (Criterio criterio : Criterio.values()) {
+                    GrafoTransporte grafo = GrafosDePrueba.generar(60, 200, semilla, sinDistancia);
+                    Random random = new Random(semilla);
+                    TodosLosPares.calcular(grafo, criterio);
+                    for (int paso = 0; paso < 40; paso++) {
+                        Ruta cambiada = cambiarRutaAlAzar(grafo, random, sinDistancia);
+                        String caso = "semilla " + semilla + ", sin distancia " + sinDistancia + ", paso " + paso;
+                        MatrizDistMinimas matriz = TodosLosPares.actualizarRuta(grafo, cambiada);
+                        assertNotNull(matriz, criterio + " " + caso);
+                        compararConRecalculada(grafo.compactar(), matriz, criterio, caso);
+                    }
+                }
+            }
+        }
+    }
+
+    // Agrega, modifica o elimina una ruta al azar como lo hacen las ventanas de edición y la retorna.
+    private static Ruta cambiarRutaAlAzar(GrafoTransporte grafo, Random random, double sinDistancia) {
+        List<Ruta> rutas = new ArrayList<>();
+        grafo.getWeb().values().forEach(rutas::addAll);
+        rutas.sort(Comparator.comparing(Ruta::getId));
+        int distancia = random.nextDouble() < sinDistancia ? 0 : 1 + random.nextInt(1000);
+        switch (random.nextInt(3)) {
+            case 0: {
+                List<Estacion> estaciones = new ArrayList<>(grafo.getWeb().keySet());
+                estaciones.sort(Comparator.comparing(Estacion::getId));
+                Estacion origen = estaciones.get(random.nextInt(estaciones.size()));
+                Estacion destino = estaciones.get(random.nextInt(estaciones.size()));
+                if (origen == destino) {
+                    destino = estaciones.get((estaciones.indexOf(origen) + 1) % estaciones.size());
+                }
+                Ruta nueva = new Ruta(origen, destino, distancia);
+                grafo.agregarRuta(nueva);
+                return nueva;
+            }
+            case 1: {
+                Ruta editada = rutas.get(random.nextInt(rutas.size()));
+                editada.setDistancia(distancia);
+                editada.setTiempo((double) distancia / editada.getOrigen().getVelocidad());
+                editada.setCosto(Ruta.calculoDeCosto(editada.getOrigen(), distancia, editada.getOrigen().getCostoBase()));
+                grafo.marcarModificado();
+                return editada;
+            }
+            default: {
+                Ruta eliminada = rutas.get(random.nextInt(rutas.size()));
+                grafo.eliminarRuta(eliminada);
+                return eliminada;
+            }
+        }
+    }
+
+    /*
+     Compara la matriz puesta al día con una recalculada desde cero: el valor de cada par, que su
+     camino sea simple y tenga ese valor, y la distancia, el tiempo y el costo de ese camino.
+     */
+    private static void compararConRecalculada(GrafoCompacto grafo, MatrizDistMinimas matriz, Criterio criterio,
+                                               String caso) {
+        MatrizDistMinimas esperada = TodosLosPares.calcularConBusquedas(grafo, criterio);
+        double[] pesos = Caminos.pesos(grafo, criterio);
+        int n = matriz.getTamanyo();
+        assertEquals(esperada.getTamanyo(), n, caso);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i == j) continue;
+                Estacion origen = matriz.getEstacion(i);
+                Estacion destino = matriz.getEstacion(j);
+                String par = criterio + " " + i + " -> " + j + " (" + caso + ")";
+                float valor = esperada.getDistancia(origen, destino);
+                if (valor == Float.POSITIVE_INFINITY) {
+                    assertEquals(Float.POSITIVE_INFINITY, matriz.getDistancia(i, j), par);
+                    assertNull(matriz.getCamino(i, j), par);
+                    continue;
+                }
+                double tolerancia = Math.max(1e-3, valor * 1e-5);
+                assertEquals(valor, matriz.getDistancia(i, j), tolerancia, par);
+
+                int[] camino = matriz.getCamino(i, j);
+                assertNotNull(camino, par);
+                assertEquals(i, camino[0], par);
+                assertEquals(j, camino[camino.length - 1], par);
+                int[] enGrafo = new int[camino.length];
+                boolean[] visitada = new boolean[n];
+                for (int k = 0; k < camino.length; k++) {
+                    assertFalse(visitada[camino[k]], par + ": camino con ciclo");
+                    visitada[camino[k]] = true;
+                    enGrafo[k] = grafo.indiceDe(matriz.getEstacion(camino[k]));
+                }
+                assertEquals(valor, GrafosDePrueba.valorCamino(grafo, enGrafo, pesos), tolerancia, par);
+
+                ResultadoRuta ruta = TodosLosPares.rutaDesdeMatriz(grafo, matriz, criterio, origen, destino);
+                assertNotNull(ruta, par);
+                assertEquals(ruta.getDistanciaTotal(), matriz.getDistanciaRecorrida(i, j), 1e-2, par);
+                assertEquals(ruta.getTiempoTotal(), matriz.getTiempo(i, j), Math.max(1e-2, ruta.getTiempoTotal() * 1e-5), par);
+                assertEquals(ruta.getCostoTotal(), matriz.getCosto(i, j), Math.max(1e-2, ruta.getCostoTotal() * 1e-5), par);
+            }
+        }
+    }
+
+    private static void comprobar(GrafoCompacto grafo, MatrizDistMinimas matriz, Criterio criterio, String caso) {
+        int n = grafo.getCantEstaciones();
+        double[] pesos = Caminos.pesos(grafo, criterio);
+        EspacioBusqueda espacio = new EspacioBusqueda(n);
+        for (int o = 0; o < n; o++) {
+            Dijkstra.buscarMejorCamino(grafo, o, -1, pesos, espacio);
+            for (int d = 0; d < n; d++) {
+                if (o == d) continue;
+                String par = criterio + " " + o + " -> " + d + " (" + caso + ")";
+                Estacion origen = grafo.getEstacion(o);
+                Estacion destino = grafo.getEstacion(d);
+                double esperado = espacio.getDistancia(d);
+                ResultadoRuta ruta = TodosLosPares.rutaDesdeMatriz(grafo, matriz, criterio, origen, destino);
+                if (esperado == Double.POSITIVE_INFINITY) {
+                    assertNull(ruta, par);
+                    assertEquals(Float.POSITIVE_INFINITY, matriz.getDistancia(origen, destino), par);
+                    continue;
+                }
+                assertNotNull(ruta, par);
+                assertEquals(origen, ruta.getCamino().getFirst(), par);
+                assertEquals(destino, ruta.getCamino().getLast(), par);
+
+                int[] camino = ruta.getCamino().stream().mapToInt(grafo::indiceDe).toArray();
+                double tolerancia = Math.max(1e-3, esperado * 1e-5);
+                assertEquals(esperado, GrafosDePrueba.valorCamino(grafo, camino, pesos), tolerancia, par);
+                assertEquals(esperado, matriz.getDistancia(origen, destino), tolerancia, par);
+                int i = matriz.indiceDe(origen);
+                int j = matriz.indiceDe(destino);
+                assertEquals(ruta.getDistanciaTotal(), matriz.getDistanciaRecorrida(i, j), 1e-2, par);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package util;
+
+import estructura.GrafoCompacto;
+import org.junit.jupiter.api.Test;
+import util.Dijkstra.Criterio;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+Clase: YenTest
+Objetivo: Comprueba en grafos chicos que los k caminos de Yen son simples, distintos y tienen
+          los mismos valores que los k mejores de todos los caminos simples, enumerados uno por
+          uno. Las rutas paralelas cuentan como caminos distintos, igual que en Yen. También
+          comprueba que una busqueda en un hilo interrumpido se detiene.
+*/
+class YenTest {
+
+    private static final int K = Dijkstra.CANT_RUTAS_TOP;
+
+    @Test
+    void igualQueEnumerarTodosLosCaminos() {
+        for (long semilla = 1; semilla < 6; semilla++) {
+            for (double sinDistancia : new double[]{0.0, 0.3}) {
+                GrafoCompacto grafo = GrafosDePrueba.generar(8, 24, semilla, sinDistancia).compactar();
+                int n = grafo.getCantEstaciones();
+                for (Criterio criterio : Criterio.values()) {
+                    double[] pesos = Caminos.pesos(grafo, criterio);
+                    for (int o = 0; o < n; o++) {
+                        for (int d = 0; d < n; d++) {
+                            if (o == d) continue;
+                            String par = criterio + " " + o + " -> " + d + " (semilla " + semilla
+                                    + ", sin distancia " + sinDistancia + ")";
+                            comprobar(grafo, o, d, pesos, par);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void seDetieneSiElHiloEstaInterrumpido() {
+        GrafoCompacto grafo = GrafosDePrueba.generar(200, 1500, 1).compactar();
+        double[] pesos = Caminos.pesos(grafo, Criterio.DISTANCIA);
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> Yen.encontrarKCaminos(grafo, 0, 1, pesos, K));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    private static void comprobar(GrafoCompacto grafo, int origen, int destino, double[] pesos, String par) {
+        List<Double> todos = new ArrayList<>();
+        enumerar(grafo, origen, destino, pesos, new boolean[grafo.getCantEstaciones()], 0.0, todos);
+        todos.sort(null);
+
+        List<int[]> caminos = Yen.encontrarKCaminos(grafo, origen, destino, pesos, K);
+        assertEquals(Math.min(K, todos.size()), caminos.size(), par);
+        for (int c = 0; c < caminos.size(); c++) {
+            int[] aristas = caminos.get(c);
+            assertEquals(todos.get(c), valor(aristas, pesos), 1e-6, par + ", camino " + c);
+            assertTrue(esSimple(grafo, origen, destino, aristas), par + ", camino " + c + " no es simple");
+            for (int otro = 0; otro < c; otro++) {
+                assertFalse(Arrays.equals(aristas, caminos.get(otro)), par + ", caminos repetidos");
+            }
+        }
+    }
+
+    // Agrega el valor de cada camino simple de u al destino, probando cada ruta que sale de u.
+    private static void enumerar(GrafoCompacto grafo, int u, int destino, double[] pesos, boolean[] visitada,
+                                 double valor, List<Double> valores) {
+        if (u == destino) {
+            valores.add(valor);
+            return;
+        }
+        visitada[u] = true;
+        for (int a = grafo.inicio(u); a < grafo.fin(u); a++) {
+            int v = grafo.getDestino(a);
+            if (!visitada[v]) {
+                enumerar(grafo, v, destino, pesos, visitada, valor + pesos[a], valores);
+            }
+        }
+        visitada[u] = false;
+    }
+
+    private static double valor(int[] aristas, double[] pesos) {
+        double total = 0.0;
+        for (int a : aristas) {
+            total += pesos[a];
+        }
+        return total;
+    }
+
+    // Las rutas van encadenadas del origen al destino sin repetir estaciones.
+    private static boolean esSimple(GrafoCompacto grafo, int origen, int destino, int[] aristas) {
+        boolean[] visitada = new boolean[grafo.getCantEstaciones()];
+        int actual = origen;
+        visitada[origen] = true;
+        for (int a : aristas) {
+            if (grafo.getOrigen(a) != actual || visitada[grafo.getDestino(a)]) {
+                return false;
+            }
+            actual = grafo.getDestino(a);
+            visitada[actual] = true;
+        }
+        return actual == destino;
+    }
+}